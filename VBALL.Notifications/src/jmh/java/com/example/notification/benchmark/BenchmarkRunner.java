@@ -0,0 +1,57 @@
+package com.example.notification.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Запускает бенчмарки по разу на каждое число потоков из jmh.threads, с профилировщиком
+ * аллокаций (gc.alloc.rate.norm — байт на операцию), и пишет результаты каждого прогона
+ * в JSON: {jmh.output}/result-t{потоки}.json. Аргументы командной строки передаются JMH
+ * как есть, например -p size=10000 -wi 1 -i 3.
+ * <p>
+ * Бенчмарки, для которых число потоков не имеет смысла ({@link SnapshotStartupBenchmark}),
+ * запускаются только в однопоточном прогоне.
+ */
+public final class BenchmarkRunner {
+
+    private static final String SINGLE_THREADED = SnapshotStartupBenchmark.class.getSimpleName();
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException, CommandLineOptionException {
+        String include = System.getProperty("jmh.include", ".*");
+        int[] threadCounts = Arrays.stream(System.getProperty("jmh.threads", "1").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        Path output = Path.of(System.getProperty("jmh.output", "target/jmh"));
+        Files.createDirectories(output);
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(output.resolve("result-t" + threads + ".json").toString());
+            if (threads > 1) {
+                options.exclude(SINGLE_THREADED);
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
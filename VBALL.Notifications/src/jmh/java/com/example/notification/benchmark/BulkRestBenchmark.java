@@ -0,0 +1,140 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.NotificationApiServiceApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * REST по сети (loopback): {@value #ITEMS} уведомлений одиночными POST и DELETE /api/notifications
+ * против одного POST /api/notifications/batch и одного POST /api/notifications/batch/delete.
+ * Результат — время на уведомление; сервис поднимается целиком, без журнала.
+ * Прогрев длинный: весь стек Spring MVC и HTTP-клиент в одной JVM компилируются долго.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 15, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BulkRestBenchmark {
+
+    static final int ITEMS = 100;
+
+    private static final String ITEM = "{\"title\":\"Матч\",\"message\":\"Игра переносится на завтра\",\"type\":\"INFO\"}";
+    private static final Pattern CREATED_ID = Pattern.compile("\"status\":201,\"id\":(\\d+)");
+
+    ConfigurableApplicationContext context;
+    HttpClient http;
+    URI base;
+    String batchBody;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(NotificationApiServiceApplication.class).run(
+                "--server.port=0", "--grpc.server.port=0", "--logging.level.root=WARN",
+                "--notification.grpc.ingest.log.mode=SUMMARY");
+        base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/notifications");
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        StringJoiner items = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(ITEM);
+        }
+        batchBody = items.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        http.close();
+        context.close();
+    }
+
+    /**
+     * Id уведомлений, которые удалит следующий вызов; создаются вне замера.
+     */
+    @State(Scope.Thread)
+    public static class Created {
+        long[] ids = new long[ITEMS];
+
+        @Setup(Level.Invocation)
+        public void create(BulkRestBenchmark benchmark) throws IOException, InterruptedException {
+            Matcher matcher = CREATED_ID.matcher(benchmark.send(post(benchmark.base, "/batch", benchmark.batchBody)));
+            for (int i = 0; i < ITEMS; i++) {
+                if (!matcher.find()) {
+                    throw new IllegalStateException("Batch created fewer than " + ITEMS + " notifications");
+                }
+                ids[i] = Long.parseLong(matcher.group(1));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void singlePost() throws IOException, InterruptedException {
+        for (int i = 0; i < ITEMS; i++) {
+            send(post(base, "", ITEM));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public String batchPost() throws IOException, InterruptedException {
+        return send(post(base, "/batch", batchBody));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void singleDelete(Created created) throws IOException, InterruptedException {
+        for (long id : created.ids) {
+            send(HttpRequest.newBuilder(URI.create(base + "/" + id)).DELETE().build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public String batchDelete(Created created) throws IOException, InterruptedException {
+        StringJoiner ids = new StringJoiner(",", "{\"ids\":[", "]}");
+        for (long id : created.ids) {
+            ids.add(Long.toString(id));
+        }
+        return send(post(base, "/batch/delete", ids.toString()));
+    }
+
+    private static HttpRequest post(URI base, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " for " + request.uri());
+        }
+        return response.body();
+    }
+}
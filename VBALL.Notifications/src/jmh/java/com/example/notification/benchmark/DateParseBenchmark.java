@@ -0,0 +1,68 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.grpc.IsoLocalDateTime;
+import com.example.notification.repository.StoredNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Дата уведомления при приёме по gRPC: разбор строки через {@link LocalDateTime#parse}
+ * с исключением на битой дате, как было, ручным {@link IsoLocalDateTime} и из date_millis.
+ * input — корректная дата или битая (без времени, как её шлёт ошибающийся клиент).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+public class DateParseBenchmark {
+
+    private static final LocalDateTime FALLBACK = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"valid", "invalid"})
+    String input;
+
+    String date;
+    long millis;
+
+    @Setup
+    public void setUp() {
+        date = input.equals("valid") ? "2025-03-01T08:30:15.1234567" : "2025-03-01";
+        millis = StoredNotification.toMillis(LocalDateTime.of(2025, 3, 1, 8, 30, 15, 123_000_000));
+    }
+
+    @Benchmark
+    public LocalDateTime jdkParse() {
+        try {
+            return LocalDateTime.parse(date, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return FALLBACK;
+        }
+    }
+
+    @Benchmark
+    public LocalDateTime isoLocalDateTime() {
+        LocalDateTime parsed = IsoLocalDateTime.parse(date);
+        return parsed != null ? parsed : FALLBACK;
+    }
+
+    @Benchmark
+    public LocalDateTime dateMillis() {
+        return StoredNotification.fromMillis(millis);
+    }
+}
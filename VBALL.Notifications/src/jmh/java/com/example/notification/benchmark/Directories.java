@@ -0,0 +1,45 @@
+package com.example.notification.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Временные каталоги журнала для бенчмарков. Создаются в java.io.tmpdir,
+ * либо в каталоге из -Djmh.walDir, чтобы мерить fsync на нужном диске.
+ */
+final class Directories {
+
+    private Directories() {
+    }
+
+    static Path create(String prefix) throws IOException {
+        String parent = System.getProperty("jmh.walDir");
+        if (parent == null || parent.isBlank()) {
+            return Files.createTempDirectory(prefix);
+        }
+        Path directory = Path.of(parent);
+        Files.createDirectories(directory);
+        return Files.createTempDirectory(directory, prefix);
+    }
+
+    static void delete(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
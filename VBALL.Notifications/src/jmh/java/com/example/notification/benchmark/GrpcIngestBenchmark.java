@@ -0,0 +1,149 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.config.GrpcIngestProperties;
+import com.example.notification.grpc.NotificationAck;
+import com.example.notification.grpc.NotificationGrpcServiceGrpc;
+import com.example.notification.grpc.NotificationGrpcServiceImpl;
+import com.example.notification.grpc.NotificationRequest;
+import com.example.notification.grpc.NotificationResponse;
+import com.example.notification.grpc.SequencedNotification;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.service.NotificationService;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приём через gRPC по сети (loopback): унарный SendNotification с ожиданием ответа
+ * на каждое уведомление против двунаправленного StreamNotifications, где клиент шлёт
+ * {@value #PIPELINED} уведомлений подряд и ждёт подтверждения последнего.
+ * Результат — уведомления в секунду; хранилище без журнала.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GrpcIngestBenchmark {
+
+    static final int PIPELINED = 10_000;
+
+    private static final NotificationRequest REQUEST = NotificationRequest.newBuilder()
+            .setUserId("user-1")
+            .setDate("2025-01-01T12:00:00")
+            .setLevel("INFO")
+            .setContent("Игра переносится на завтра")
+            .build();
+
+    Server server;
+    NotificationGrpcServiceImpl service;
+    ManagedChannel channel;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        service = new NotificationGrpcServiceImpl(
+                new NotificationService(new NotificationStore()), new GrpcIngestProperties(0, null, 0));
+        server = ServerBuilder.forPort(0).addService(service).build().start();
+        channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        service.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class UnaryClient {
+        NotificationGrpcServiceGrpc.NotificationGrpcServiceBlockingStub stub;
+
+        @Setup(Level.Trial)
+        public void connect(GrpcIngestBenchmark benchmark) {
+            stub = NotificationGrpcServiceGrpc.newBlockingStub(benchmark.channel);
+        }
+    }
+
+    /**
+     * Один долгоживущий поток StreamNotifications на поток бенчмарка.
+     */
+    @State(Scope.Thread)
+    public static class StreamClient implements StreamObserver<NotificationAck> {
+        private StreamObserver<SequencedNotification> requests;
+        private long sequence;
+        private volatile long target;
+        private volatile CompletableFuture<Void> acked;
+
+        @Setup(Level.Trial)
+        public void connect(GrpcIngestBenchmark benchmark) {
+            requests = NotificationGrpcServiceGrpc.newStub(benchmark.channel).streamNotifications(this);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            requests.onCompleted();
+        }
+
+        void sendAndAwait(int count) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            target = sequence + count;
+            acked = done;
+            for (int i = 0; i < count; i++) {
+                requests.onNext(SequencedNotification.newBuilder()
+                        .setSequence(++sequence)
+                        .setNotification(REQUEST)
+                        .build());
+            }
+            done.join();
+        }
+
+        @Override
+        public void onNext(NotificationAck ack) {
+            if (ack.getFailedCount() > 0) {
+                acked.completeExceptionally(new IllegalStateException(ack.getFailed(0).getError()));
+            } else if (ack.getAckedThrough() >= target) {
+                acked.complete(null);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            acked.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+    @Benchmark
+    public NotificationResponse unary(UnaryClient client) {
+        return client.stub.sendNotification(REQUEST);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINED)
+    public void bidiStream(StreamClient client) {
+        client.sendAndAwait(PIPELINED);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.service.IdempotencyCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ключи идемпотентности: hit — повтор с уже известным ключом (путь ретрая),
+ * miss — первый запрос с новым ключом при заполненном кэше, с вытеснением самого старого.
+ * Ключи — UUID, как их генерирует клиент; строки созданы заранее, чтобы не мерить их выделение.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class IdempotencyCacheBenchmark {
+
+    @Param({"100000"})
+    int maxKeys;
+
+    IdempotencyCache cache;
+    String[] storedKeys;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        cache = new IdempotencyCache(maxKeys, Duration.ofHours(1));
+        storedKeys = uuids(maxKeys);
+        for (int i = 0; i < maxKeys; i++) {
+            cache.claim(storedKeys[i]);
+            cache.complete(storedKeys[i], i);
+        }
+    }
+
+    /**
+     * Позиции потока: по уже известным ключам и по своим новым ключам. Новых вдвое больше
+     * ёмкости, так что к повторному использованию ключ уже вытеснен чужими и своими вставками.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int hit;
+        int miss;
+        String[] newKeys;
+
+        @Setup(Level.Trial)
+        public void generate(IdempotencyCacheBenchmark benchmark) {
+            newKeys = uuids(benchmark.maxKeys * 2);
+        }
+    }
+
+    @Benchmark
+    public long hit(Cursor cursor) {
+        if (cursor.hit == storedKeys.length) {
+            cursor.hit = 0;
+        }
+        return cache.claim(storedKeys[cursor.hit++]);
+    }
+
+    @Benchmark
+    public long miss(Cursor cursor) {
+        if (cursor.miss == cursor.newKeys.length) {
+            cursor.miss = 0;
+        }
+        String key = cursor.newKeys[cursor.miss++];
+        long claimed = cache.claim(key);
+        cache.complete(key, cursor.miss);
+        return claimed;
+    }
+
+    private static String[] uuids(int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = UUID.randomUUID().toString();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.config.NotificationMetrics;
+import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationQuery;
+import com.example.notification.repository.NotificationSlice;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена метрик хранилища: те же операции без метрик и с метрами реестра Prometheus,
+ * как в приложении. Сравнивать время и gc.alloc.rate.norm: замер не должен выделять память.
+ * save заменяет существующие уведомления, чтобы размер хранилища не рос за время замера.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MetricsOverheadBenchmark {
+
+    private static final int SIZE = 100_000;
+
+    @Param({"none", "prometheus"})
+    String metrics;
+
+    NotificationStore store;
+    LocalDateTime now;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        now = LocalDateTime.now();
+        store = new NotificationStore();
+        Notifications.fill(store, now, SIZE, 0);
+        if (metrics.equals("prometheus")) {
+            store.setMetrics(NotificationMetrics.storeTimers(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Replacements {
+        private final SplittableRandom random = new SplittableRandom();
+
+        Notification next(MetricsOverheadBenchmark benchmark) {
+            long i = random.nextInt(SIZE);
+            Notification notification = Notifications.notification(i, benchmark.now, SIZE, 0);
+            notification.setId(i + 1);
+            return notification;
+        }
+    }
+
+    @Benchmark
+    public StoredNotification save(Replacements replacements) {
+        return store.save(replacements.next(this));
+    }
+
+    @Benchmark
+    public NotificationSlice findPage() {
+        return store.findPage(new NotificationQuery(null, null, null, Set.of("INFO"), null, 50));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.dto.NotificationResponse;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.service.NotificationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полные выборки сервиса вместе с преобразованием в DTO: то, что отдают
+ * GET /api/notifications и GET /api/notifications/recent без пагинации.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class NotificationServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    NotificationService service;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        NotificationStore store = new NotificationStore();
+        Notifications.fill(store, LocalDateTime.now(), size, 0);
+        service = new NotificationService(store);
+    }
+
+    @Benchmark
+    public List<NotificationResponse> getAllNotifications() {
+        return service.getAllNotifications();
+    }
+
+    @Benchmark
+    public List<NotificationResponse> getNotificationsFromLastTwoDays() {
+        return service.getNotificationsFromLastDays(2);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтения из заполненного хранилища: поиск по id и срез за последние сутки
+ * (1/30 содержимого). Число потоков задаётся прогоном ({@link BenchmarkRunner}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class NotificationStoreBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    NotificationStore store;
+    LocalDateTime lastDay;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        LocalDateTime now = LocalDateTime.now();
+        store = new NotificationStore();
+        Notifications.fill(store, now, size, 0);
+        lastDay = now.minusDays(1);
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private final SplittableRandom random = new SplittableRandom();
+
+        long next(int size) {
+            return 1 + random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public StoredNotification findById(Ids ids) {
+        return store.findById(ids.next(size));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<StoredNotification> findSinceLastDay() {
+        return store.findSince(lastDay);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись и удаление при заданном размере хранилища. Чтобы размер не уплывал за время
+ * замера, каждая итерация — пачка из {@value #BATCH} вызовов на поток (SingleShotTime,
+ * результат — время пачки), а после итерации хранилище возвращается к исходному содержимому:
+ * сохранённые уведомления удаляются, удалённые — сохраняются обратно с теми же id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, batchSize = NotificationStoreWriteBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = NotificationStoreWriteBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class NotificationStoreWriteBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    NotificationStore store;
+    LocalDateTime now;
+    long firstNewId;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        now = LocalDateTime.now();
+        store = new NotificationStore();
+        Notifications.fill(store, now, size, 0);
+        firstNewId = store.nextId();
+    }
+
+    @TearDown(Level.Iteration)
+    public void restore() {
+        for (long id = firstNewId; id < store.nextId(); id++) {
+            store.removeById(id);
+        }
+        for (long id = 1; id < firstNewId; id++) {
+            if (store.findById(id) == null) {
+                Notification notification = Notifications.notification(id - 1, now, size, 0);
+                notification.setId(id);
+                store.save(notification);
+            }
+        }
+    }
+
+    /**
+     * Непересекающийся диапазон существующих id для каждого потока.
+     */
+    @State(Scope.Thread)
+    public static class Slice {
+        long next;
+        long end;
+
+        @Setup(Level.Iteration)
+        public void reset(NotificationStoreWriteBenchmark benchmark, ThreadParams thread) {
+            long perThread = benchmark.size / thread.getThreadCount();
+            if (perThread < BATCH) {
+                throw new IllegalStateException("size " + benchmark.size + " is too small for "
+                        + thread.getThreadCount() + " threads");
+            }
+            next = 1 + thread.getThreadIndex() * perThread;
+            end = next + perThread;
+        }
+    }
+
+    @Benchmark
+    public StoredNotification save() {
+        Notification notification = new Notification();
+        notification.setTitle("Матч");
+        notification.setMessage("Игра переносится на завтра");
+        notification.setType("INFO");
+        notification.setUserId("user-1");
+        notification.setCreatedAt(now);
+        return store.save(notification);
+    }
+
+    @Benchmark
+    public boolean removeById(Slice slice) {
+        return store.removeById(slice.next++);
+    }
+}
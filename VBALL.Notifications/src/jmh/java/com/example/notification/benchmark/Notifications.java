@@ -0,0 +1,58 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationStore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Детерминированные наборы уведомлений для бенчмарков: уведомление с номером i всегда
+ * одно и то же, поэтому удалённое в замере можно вернуть в хранилище тем же.
+ */
+final class Notifications {
+
+    /** Период, по которому равномерно разложены createdAt: последние 30 дней. */
+    static final int SPAN_MINUTES = 30 * 24 * 60;
+    static final int USERS = 1000;
+    static final String[] TYPES = {"INFO", "WARNING", "ERROR", "MATCH", "TRAINING"};
+
+    private static final int FILL_BATCH = 10_000;
+
+    private Notifications() {
+    }
+
+    /**
+     * @param now     конец периода
+     * @param size    сколько всего уведомлений в наборе, задаёт шаг по времени
+     * @param rareOneIn каждое rareOneIn-е уведомление получает тип RARE; 0 — без редкого типа
+     */
+    static Notification notification(long i, LocalDateTime now, long size, long rareOneIn) {
+        Notification notification = new Notification();
+        notification.setTitle("Матч " + i);
+        notification.setMessage("Игра " + i + " переносится, команда " + (i % 97) + " играет в зале " + (i % 13));
+        notification.setType(rareOneIn > 0 && i % rareOneIn == 0 ? "RARE" : TYPES[(int) (i % TYPES.length)]);
+        notification.setUserId(i % 4 == 0 ? null : "user-" + (i % USERS));
+        long minutesAgo = SPAN_MINUTES - (i * SPAN_MINUTES / Math.max(1, size));
+        notification.setCreatedAt(now.minusMinutes(minutesAgo).plusNanos(i % 1_000_000 * 1000));
+        return notification;
+    }
+
+    /**
+     * Заполняет хранилище уведомлениями с номерами 0..size-1 (id 1..size у пустого хранилища).
+     */
+    static void fill(NotificationStore store, LocalDateTime now, long size, long rareOneIn) {
+        List<Notification> batch = new ArrayList<>(FILL_BATCH);
+        for (long i = 0; i < size; i++) {
+            batch.add(notification(i, now, size, rareOneIn));
+            if (batch.size() == FILL_BATCH) {
+                store.saveAll(batch);
+                batch = new ArrayList<>(FILL_BATCH);
+            }
+        }
+        if (!batch.isEmpty()) {
+            store.saveAll(batch);
+        }
+    }
+}
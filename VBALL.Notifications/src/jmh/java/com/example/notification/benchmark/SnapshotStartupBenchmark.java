@@ -0,0 +1,92 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.config.PersistenceProperties;
+import com.example.notification.persistence.FsyncPolicy;
+import com.example.notification.persistence.WriteAheadLog;
+import com.example.notification.repository.MessageArena;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.service.NotificationSnapshotService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время старта хранилища: восстановление из одного журнала и из снимка.
+ * Каталог заполняется один раз на trial, каждая итерация открывает его заново.
+ * Полнотекстовый индекс выключен, чтобы 10M уведомлений помещались в -Xmx8g;
+ * его построение при старте — отдельная стоимость, одинаковая для обоих вариантов.
+ * Имеет смысл только в один поток: {@link BenchmarkRunner} не запускает его с threads &gt; 1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class SnapshotStartupBenchmark {
+
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    @Param({"1000000", "10000000"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean snapshot;
+
+    Path directory;
+    WriteAheadLog reopened;
+
+    @Setup(Level.Trial)
+    public void fill() throws IOException {
+        directory = Directories.create("snapshot-bench");
+        try (WriteAheadLog wal = open()) {
+            NotificationStore store = new NotificationStore(wal, MessageArena.onHeap(), false);
+            Notifications.fill(store, LocalDateTime.now(), size, 0);
+            if (snapshot) {
+                PersistenceProperties properties = new PersistenceProperties(true, directory, FsyncPolicy.OS,
+                        null, DataSize.ofBytes(SEGMENT_BYTES), null, 0);
+                new NotificationSnapshotService(store, wal, properties).snapshot();
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeReopened() throws IOException {
+        if (reopened != null) {
+            reopened.close();
+            reopened = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() {
+        Directories.delete(directory);
+    }
+
+    @Benchmark
+    public int recover() {
+        reopened = open();
+        return new NotificationStore(reopened, MessageArena.onHeap(), false).size();
+    }
+
+    private WriteAheadLog open() {
+        return new WriteAheadLog(directory, FsyncPolicy.OS, SEGMENT_BYTES, Duration.ofMillis(10));
+    }
+}
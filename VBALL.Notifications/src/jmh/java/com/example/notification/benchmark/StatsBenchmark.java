@@ -0,0 +1,80 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.repository.NotificationQuery;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.RollupInterval;
+import com.example.notification.repository.StoredNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Счётчики по уровням за период: из поддерживаемых при записи агрегатов
+ * ({@link NotificationStore#countByLevel}) и обходом уведомлений периода с группировкой,
+ * как пришлось бы считать без них. period — длина периода: минутные корзины за час
+ * или часовые за сутки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StatsBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"1h", "24h"})
+    String period;
+
+    NotificationStore store;
+    RollupInterval interval;
+    LocalDateTime from;
+    LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        store = new NotificationStore();
+        LocalDateTime now = LocalDateTime.now();
+        Notifications.fill(store, now, size, 0);
+        interval = period.equals("1h") ? RollupInterval.MINUTE : RollupInterval.HOUR;
+        to = now.withSecond(0).withNano(0);
+        from = interval == RollupInterval.MINUTE ? to.minusHours(1) : to.minusDays(1);
+    }
+
+    @Benchmark
+    public Map<String, NavigableMap<Long, Long>> rollups() {
+        return store.countByLevel(interval, from, to, null);
+    }
+
+    @Benchmark
+    public Map<String, NavigableMap<Long, Long>> scan() {
+        long width = interval.widthMillis();
+        Map<String, NavigableMap<Long, Long>> counts = new HashMap<>();
+        Iterator<StoredNotification> it = store.iterate(new NotificationQuery(null, from, to, null, null, Integer.MAX_VALUE));
+        while (it.hasNext()) {
+            StoredNotification notification = it.next();
+            long start = Math.floorDiv(notification.getCreatedAtMillis(), width) * width;
+            counts.computeIfAbsent(notification.getType(), type -> new TreeMap<>()).merge(start, 1L, Long::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.repository.NotificationQuery;
+import com.example.notification.repository.NotificationSlice;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Страница из 50 уведомлений редкого типа: через индексы по типу ({@link NotificationStore#findPage})
+ * и полным обходом временного индекса с фильтром, как было до индексов по типу.
+ * rareOneIn задаёт селективность: RARE — каждое rareOneIn-е уведомление.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TypeFilterBenchmark {
+
+    private static final int LIMIT = 50;
+    private static final Set<String> RARE = Set.of("RARE");
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"10", "1000", "100000"})
+    int rareOneIn;
+
+    NotificationStore store;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        store = new NotificationStore();
+        Notifications.fill(store, LocalDateTime.now(), size, rareOneIn);
+    }
+
+    @Benchmark
+    public NotificationSlice typeIndex() {
+        return store.findPage(new NotificationQuery(null, null, null, RARE, null, LIMIT));
+    }
+
+    @Benchmark
+    public List<StoredNotification> timeIndexScan() {
+        List<StoredNotification> items = new ArrayList<>(LIMIT);
+        for (StoredNotification notification : store.timeOrderedView()) {
+            if (RARE.contains(notification.getType())) {
+                items.add(notification);
+                if (items.size() == LIMIT) {
+                    break;
+                }
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.notification.benchmark;
+
+import com.example.notification.model.Notification;
+import com.example.notification.persistence.FsyncPolicy;
+import com.example.notification.persistence.WriteAheadLog;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность записи через журнал при разных политиках fsync:
+ * по одному уведомлению и пачками по {@value #BATCH}, как пишет потоковый gRPC.
+ * Результат — сохранённые уведомления в секунду; с GROUP и PER_WRITE он сильно
+ * зависит от числа потоков и от диска (см. -Djmh.walDir).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WalBenchmark {
+
+    static final int BATCH = 100;
+
+    @Param({"OS", "GROUP", "PER_WRITE"})
+    FsyncPolicy fsync;
+
+    Path directory;
+    WriteAheadLog wal;
+    NotificationStore store;
+    LocalDateTime now;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        directory = Directories.create("wal-bench");
+        wal = new WriteAheadLog(directory, fsync, 64L * 1024 * 1024, Duration.ofMillis(10));
+        store = new NotificationStore(wal);
+        now = LocalDateTime.now();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        wal.close();
+        Directories.delete(directory);
+    }
+
+    @Benchmark
+    public StoredNotification save() {
+        return store.save(Notifications.notification(0, now, 1, 0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<StoredNotification> saveAll() {
+        List<Notification> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(Notifications.notification(i, now, BATCH, 0));
+        }
+        return store.saveAll(batch);
+    }
+}
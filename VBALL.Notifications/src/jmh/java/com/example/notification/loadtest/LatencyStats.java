@@ -0,0 +1,97 @@
+package com.example.notification.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки по операциям. Запись — из любых потоков через {@link Recorder},
+ * снятие интервалов — из одного потока отчёта. Задержки в наносекундах.
+ */
+final class LatencyStats {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> intervals = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> totalErrors = new EnumMap<>(Operation.class);
+    private final List<Operation> operations;
+    private final HistogramLogWriter log;
+
+    LatencyStats(List<Operation> operations, HistogramLogWriter log) {
+        this.operations = operations;
+        this.log = log;
+        for (Operation operation : operations) {
+            recorders.put(operation, new Recorder(3));
+            totals.put(operation, new Histogram(3));
+            errors.put(operation, new LongAdder());
+            totalErrors.put(operation, 0L);
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, Throwable error) {
+        recorders.get(operation).recordValue(Math.max(1, latencyNanos));
+        if (error != null) {
+            errors.get(operation).increment();
+        }
+    }
+
+    /**
+     * Снимает интервал и печатает по строке на операцию.
+     *
+     * @param measured false — интервал разогрева: печатается, но в итог не попадает
+     */
+    void interval(PrintStream out, double seconds, boolean measured) {
+        for (Operation operation : operations) {
+            Histogram interval = recorders.get(operation).getIntervalHistogram(intervals.get(operation));
+            intervals.put(operation, interval);
+            long intervalErrors = errors.get(operation).sumThenReset();
+            if (measured) {
+                totals.get(operation).add(interval);
+                totalErrors.merge(operation, intervalErrors, Long::sum);
+                if (log != null) {
+                    interval.setTag(operation.key());
+                    log.outputIntervalHistogram(interval);
+                }
+            }
+            out.printf("%-8s %-7s %9.0f ops/s  p50=%8.2f  p99=%8.2f  max=%9.2f ms  errors=%d%n",
+                    measured ? "" : "warmup", operation.key(),
+                    interval.getTotalCount() / seconds,
+                    millis(interval.getValueAtPercentile(50)),
+                    millis(interval.getValueAtPercentile(99)),
+                    millis(interval.getMaxValue()),
+                    intervalErrors);
+        }
+    }
+
+    void summary(PrintStream out, double seconds) {
+        out.printf("%-7s %10s %10s %9s %9s %9s %9s %9s %9s %8s%n",
+                "op", "count", "ops/s", "p50", "p90", "p99", "p99.9", "p99.99", "max ms", "errors");
+        for (Operation operation : operations) {
+            Histogram total = totals.get(operation);
+            out.printf("%-7s %10d %10.0f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %8d%n",
+                    operation.key(),
+                    total.getTotalCount(),
+                    total.getTotalCount() / seconds,
+                    millis(total.getValueAtPercentile(50)),
+                    millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)),
+                    millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getValueAtPercentile(99.99)),
+                    millis(total.getMaxValue()),
+                    totalErrors.get(operation));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.notification.loadtest;
+
+import com.example.notification.NotificationApiServiceApplication;
+import net.devh.boot.grpc.server.event.GrpcServerStartedEvent;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузка на сервис уведомлений так, как его вызывает сервис расписания: унарный
+ * SendNotification, потоковый SendNotifications и чтения REST в заданных долях.
+ * По умолчанию поднимает приложение в этом же процессе на случайных портах.
+ * <p>
+ * Открытый цикл (--rate): операции запускаются по расписанию, не дожидаясь ответов
+ * на предыдущие, а задержка считается от запланированного времени запуска. Если
+ * сервис притормозил, операции, которые должны были начаться за это время, получают
+ * задержку ожидания — поправка на coordinated omission. Закрытый цикл (--rate=0)
+ * показывает предельную пропускную способность при --concurrency клиентах,
+ * но его задержки такой поправки не имеют.
+ * <p>
+ * Запуск: mvn -Pjmh -DskipTests test-compile exec:exec@load-test -Dload.args="rate=2000 mix=unary:90,recent:10"
+ */
+public final class LoadGenerator {
+
+    private static final PrintStream out = System.out;
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("help") || Arrays.asList(args).contains("--help")) {
+            out.print(LoadOptions.USAGE);
+            return;
+        }
+        LoadOptions options = LoadOptions.parse(args);
+        ConfigurableApplicationContext application = null;
+        try {
+            String restUrl = options.restUrl();
+            String grpcTarget = options.grpcTarget();
+            if (options.inProcess()) {
+                AtomicInteger grpcPort = new AtomicInteger();
+                application = startApplication(args, grpcPort);
+                int httpPort = ((WebServerApplicationContext) application).getWebServer().getPort();
+                restUrl = "http://localhost:" + httpPort;
+                grpcTarget = "localhost:" + grpcPort.get();
+            }
+            try (LoadTarget target = new LoadTarget(restUrl, grpcTarget, options.streamSize())) {
+                run(target, options, restUrl, grpcTarget);
+            }
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(String[] args, AtomicInteger grpcPort) {
+        List<String> applicationArgs = new ArrayList<>(Arrays.asList(args));
+        if (applicationArgs.stream().noneMatch(arg -> arg.startsWith("--server.port="))) {
+            applicationArgs.add("--server.port=0");
+        }
+        if (applicationArgs.stream().noneMatch(arg -> arg.startsWith("--grpc.server.port="))) {
+            applicationArgs.add("--grpc.server.port=0");
+        }
+        if (applicationArgs.stream().noneMatch(arg -> arg.startsWith("--logging.config="))) {
+            // logback-test.xml бенчмарков глушит логи, а их цена — часть нагрузки
+            applicationArgs.add("--logging.config=classpath:logback-spring.xml");
+        }
+        SpringApplication application = new SpringApplication(NotificationApiServiceApplication.class);
+        application.addListeners((ApplicationListener<GrpcServerStartedEvent>) event -> grpcPort.set(event.getPort()));
+        return application.run(applicationArgs.toArray(String[]::new));
+    }
+
+    private static void run(LoadTarget target, LoadOptions options, String restUrl, String grpcTarget)
+            throws FileNotFoundException, InterruptedException {
+        out.printf("Target: %s, grpc %s%n", restUrl, grpcTarget);
+        out.printf("Mode: %s, mix %s, warmup %ss, duration %ss%n",
+                options.openLoop()
+                        ? String.format("open loop %.0f ops/s, max %d in flight", options.rate(), options.concurrency())
+                        : String.format("closed loop, %d clients", options.concurrency()),
+                options.mix(), options.warmup().toSeconds(), options.duration().toSeconds());
+
+        if (options.preload() > 0) {
+            long started = System.nanoTime();
+            target.preload(options.preload());
+            out.printf("Preloaded %d notifications in %d ms%n",
+                    options.preload(), (System.nanoTime() - started) / 1_000_000);
+        }
+
+        HistogramLogWriter log = null;
+        if (options.hdrLog() != null) {
+            log = new HistogramLogWriter(options.hdrLog().toFile());
+            long now = System.currentTimeMillis();
+            log.outputLogFormatVersion();
+            log.outputStartTime(now);
+            log.setBaseTime(now);
+            log.outputLegend();
+        }
+        LatencyStats stats = new LatencyStats(options.mix().operations(), log);
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        Thread driver = Thread.ofPlatform().name("load-driver").start(() -> {
+            if (options.openLoop()) {
+                openLoop(target, options, stats, start, end);
+            } else {
+                closedLoop(target, options, stats, end);
+            }
+        });
+
+        long intervalNanos = options.reportInterval().toNanos();
+        for (long last = start; last < end; ) {
+            long next = Math.min(last + intervalNanos, last < measureFrom ? measureFrom : end);
+            parkUntil(next);
+            if (next == end) {
+                // операции, начатые до конца замера, тоже входят в последний интервал
+                driver.join();
+            }
+            stats.interval(out, (next - last) / 1e9, last >= measureFrom);
+            last = next;
+        }
+
+        out.println();
+        if (!options.openLoop()) {
+            out.println("Closed loop: latencies are not corrected for coordinated omission");
+        }
+        stats.summary(out, options.duration().toNanos() / 1e9);
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private static void openLoop(LoadTarget target, LoadOptions options, LatencyStats stats, long start, long end) {
+        double intervalNanos = 1e9 / options.rate();
+        Semaphore inFlight = new Semaphore(options.concurrency());
+        for (long n = 0; ; n++) {
+            long intended = start + (long) (n * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            parkUntil(intended);
+            // ожидание свободного места входит в задержку: она считается от intended
+            inFlight.acquireUninterruptibly();
+            Operation operation = options.mix().next();
+            execute(target, operation, n).whenComplete((result, error) -> {
+                stats.record(operation, System.nanoTime() - intended, error);
+                inFlight.release();
+            });
+        }
+        drain(inFlight, options.concurrency());
+    }
+
+    private static void closedLoop(LoadTarget target, LoadOptions options, LatencyStats stats, long end) {
+        int clients = options.concurrency();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                long first = client;
+                executor.submit(() -> {
+                    for (long n = first; System.nanoTime() < end; n += clients) {
+                        Operation operation = options.mix().next();
+                        long started = System.nanoTime();
+                        Throwable error = null;
+                        try {
+                            execute(target, operation, n).join();
+                        } catch (RuntimeException e) {
+                            error = e;
+                        }
+                        stats.record(operation, System.nanoTime() - started, error);
+                    }
+                });
+            }
+        }
+    }
+
+    private static CompletableFuture<?> execute(LoadTarget target, Operation operation, long n) {
+        try {
+            return target.execute(operation, n);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static void drain(Semaphore inFlight, int permits) {
+        try {
+            if (!inFlight.tryAcquire(permits, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                out.printf("%d operations still in flight after %ds, not counted%n",
+                        permits - inFlight.availablePermits(), DRAIN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void parkUntil(long deadline) {
+        for (long remaining; (remaining = deadline - System.nanoTime()) > 0; ) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
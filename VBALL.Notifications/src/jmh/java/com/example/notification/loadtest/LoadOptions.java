@@ -0,0 +1,95 @@
+package com.example.notification.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры прогона из аргументов вида --key=value или key=value.
+ *
+ * @param rate           операций в секунду в открытом цикле; 0 — закрытый цикл
+ * @param concurrency    в закрытом цикле — число клиентов; в открытом — предел одновременных операций
+ * @param duration       длительность замера после разогрева
+ * @param warmup         разогрев: операции идут, но в результаты не попадают
+ * @param mix            доли операций
+ * @param streamSize     уведомлений в одном вызове SendNotifications
+ * @param preload        сколько уведомлений загрузить до начала, чтобы чтениям было что читать
+ * @param reportInterval период промежуточных строк отчёта
+ * @param hdrLog         файл для журнала гистограмм (HdrHistogram log), null — не писать
+ * @param restUrl        адрес уже запущенного сервиса; null — поднять приложение в процессе
+ * @param grpcTarget     host:port gRPC уже запущенного сервиса
+ */
+record LoadOptions(
+        double rate,
+        int concurrency,
+        Duration duration,
+        Duration warmup,
+        Mix mix,
+        int streamSize,
+        int preload,
+        Duration reportInterval,
+        Path hdrLog,
+        String restUrl,
+        String grpcTarget
+) {
+
+    static final String USAGE = """
+            Options (--key=value or key=value):
+              --rate=1000           operations per second, open loop with coordinated omission correction;
+                                    0 - closed loop of --concurrency clients
+              --concurrency=64      closed loop: clients; open loop: max operations in flight
+              --duration=30s        measured time after warmup
+              --warmup=10s          time before measurement
+              --mix=unary:100       weights of unary, stream, page, recent, user, by-id, poll
+              --stream-size=100     notifications per SendNotifications call
+              --preload=10000       notifications stored before the run
+              --report-interval=5s  interval lines
+              --hdr-log=file.hlog   HdrHistogram interval log, tagged by operation
+              --rest-url=http://host:8080 --grpc-target=host:9090
+                                    load a running instance instead of starting one in-process
+            Other --key=value arguments (with the dashes) are passed to the in-process application,
+            e.g. --notification.persistence.enabled=true --spring.threads.virtual.enabled=true
+            """;
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                String key = arg.startsWith("--") ? arg.substring(2, separator) : arg.substring(0, separator);
+                values.put(key, arg.substring(separator + 1));
+            }
+        }
+        String hdrLog = values.get("hdr-log");
+        LoadOptions options = new LoadOptions(
+                Double.parseDouble(values.getOrDefault("rate", "1000")),
+                Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                DurationStyle.detectAndParse(values.getOrDefault("duration", "30s")),
+                DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+                Mix.parse(values.getOrDefault("mix", "unary:100")),
+                Integer.parseInt(values.getOrDefault("stream-size", "100")),
+                Integer.parseInt(values.getOrDefault("preload", "10000")),
+                DurationStyle.detectAndParse(values.getOrDefault("report-interval", "5s")),
+                hdrLog != null ? Path.of(hdrLog) : null,
+                values.get("rest-url"),
+                values.get("grpc-target"));
+        if (options.rate < 0 || options.concurrency <= 0 || options.streamSize <= 0 || options.preload < 0) {
+            throw new IllegalArgumentException("rate, preload must be >= 0; concurrency, stream-size must be > 0");
+        }
+        if ((options.restUrl == null) != (options.grpcTarget == null)) {
+            throw new IllegalArgumentException("--rest-url and --grpc-target go together");
+        }
+        return options;
+    }
+
+    boolean openLoop() {
+        return rate > 0;
+    }
+
+    boolean inProcess() {
+        return restUrl == null;
+    }
+}
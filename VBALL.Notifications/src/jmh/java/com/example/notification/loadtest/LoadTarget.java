@@ -0,0 +1,164 @@
+package com.example.notification.loadtest;
+
+import com.example.notification.grpc.NotificationGrpcServiceGrpc;
+import com.example.notification.grpc.NotificationRequest;
+import com.example.notification.grpc.NotificationResponse;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Клиенты сервиса: gRPC-канал и HTTP/1.1-клиент. Все операции асинхронные:
+ * возвращённый future завершается ошибкой, если сервис ответил неуспехом.
+ */
+final class LoadTarget implements AutoCloseable {
+
+    private static final int USERS = 1000;
+    private static final int PAGE_LIMIT = 50;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    /** Сервис расписания передаёт дату матча без времени: match.StartTime.ToString("yyyy-MM-dd"). */
+    private static final DateTimeFormatter SCHEDULE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final URI rest;
+    private final HttpClient http;
+    private final ManagedChannel channel;
+    private final NotificationGrpcServiceGrpc.NotificationGrpcServiceStub stub;
+    private final int streamSize;
+    private final String date = LocalDate.now().format(SCHEDULE_DATE);
+    private volatile long maxId;
+    private volatile String pollEtag;
+
+    LoadTarget(String restUrl, String grpcTarget, int streamSize) {
+        this.streamSize = streamSize;
+        this.rest = URI.create(restUrl.endsWith("/") ? restUrl : restUrl + "/");
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        this.channel = ManagedChannelBuilder.forTarget(grpcTarget).usePlaintext().build();
+        this.stub = NotificationGrpcServiceGrpc.newStub(channel);
+    }
+
+    CompletableFuture<?> execute(Operation operation, long n) {
+        return switch (operation) {
+            case UNARY -> sendNotification(n);
+            case STREAM -> sendNotifications(n, -1);
+            case PAGE -> get("api/notifications?limit=" + PAGE_LIMIT);
+            case RECENT -> get("api/notifications/recent?limit=" + PAGE_LIMIT);
+            case USER -> get("api/users/" + userId(ThreadLocalRandom.current().nextLong()) + "/notifications?limit="
+                    + PAGE_LIMIT);
+            case BY_ID -> get("api/notifications/" + (1 + ThreadLocalRandom.current().nextLong(Math.max(1, maxId))));
+            case POLL -> poll("api/notifications/recent");
+        };
+    }
+
+    /**
+     * Загружает count уведомлений потоками SendNotifications.
+     */
+    void preload(int count) {
+        for (int sent = 0; sent < count; sent += streamSize) {
+            sendNotifications(sent, Math.min(streamSize, count - sent)).join();
+        }
+        maxId = Math.max(maxId, count);
+    }
+
+    private CompletableFuture<NotificationResponse> sendNotification(long n) {
+        ResponseFuture response = new ResponseFuture();
+        stub.sendNotification(request(n), response);
+        return response.thenApply(LoadTarget::requireSuccess);
+    }
+
+    private CompletableFuture<NotificationResponse> sendNotifications(long n, int size) {
+        ResponseFuture response = new ResponseFuture();
+        StreamObserver<NotificationRequest> requests = stub.sendNotifications(response);
+        int count = size > 0 ? size : streamSize;
+        for (int i = 0; i < count; i++) {
+            requests.onNext(request(n * count + i));
+        }
+        requests.onCompleted();
+        return response.thenApply(LoadTarget::requireSuccess);
+    }
+
+    private CompletableFuture<HttpResponse<Void>> get(String path) {
+        HttpRequest request = HttpRequest.newBuilder(rest.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + " for " + path);
+            }
+            return response;
+        });
+    }
+
+    private CompletableFuture<HttpResponse<Void>> poll(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(rest.resolve(path)).timeout(REQUEST_TIMEOUT).GET();
+        String etag = pollEtag;
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        return http.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+            if (response.statusCode() == 200) {
+                response.headers().firstValue("ETag").ifPresent(value -> pollEtag = value);
+            } else if (response.statusCode() != 304) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + " for " + path);
+            }
+            return response;
+        });
+    }
+
+    private NotificationRequest request(long n) {
+        return NotificationRequest.newBuilder()
+                .setUserId(userId(n))
+                .setDate(date)
+                .setLevel("info")
+                .setContent("Match " + n + " has been started")
+                .build();
+    }
+
+    private static String userId(long n) {
+        return "user-" + Math.floorMod(n, USERS);
+    }
+
+    private static NotificationResponse requireSuccess(NotificationResponse response) {
+        if (!response.getSuccess()) {
+            throw new IllegalStateException(response.getMessage());
+        }
+        return response;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        http.close();
+    }
+
+    private static final class ResponseFuture extends CompletableFuture<NotificationResponse>
+            implements StreamObserver<NotificationResponse> {
+
+        @Override
+        public void onNext(NotificationResponse value) {
+            complete(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
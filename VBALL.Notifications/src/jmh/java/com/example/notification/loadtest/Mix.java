@@ -0,0 +1,66 @@
+package com.example.notification.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Доли операций в нагрузке, например unary:90,recent:5,user:5.
+ */
+final class Mix {
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private Mix(Operation[] operations, int[] cumulativeWeights) {
+        this.operations = operations;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    static Mix parse(String spec) {
+        List<Operation> operations = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String part : spec.split(",")) {
+            String[] keyAndWeight = part.trim().split(":");
+            int weight = keyAndWeight.length > 1 ? Integer.parseInt(keyAndWeight[1].trim()) : 1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in mix '" + spec + "'");
+            }
+            if (weight == 0) {
+                continue;
+            }
+            total += weight;
+            operations.add(Operation.fromKey(keyAndWeight[0].trim()));
+            weights.add(total);
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Empty mix '" + spec + "'");
+        }
+        return new Mix(operations.toArray(Operation[]::new), weights.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    Operation next() {
+        int point = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    List<Operation> operations() {
+        return List.of(operations);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < operations.length; i++) {
+            int weight = cumulativeWeights[i] - (i == 0 ? 0 : cumulativeWeights[i - 1]);
+            text.append(i == 0 ? "" : ",").append(operations[i].key()).append(':').append(weight);
+        }
+        return text.toString();
+    }
+}
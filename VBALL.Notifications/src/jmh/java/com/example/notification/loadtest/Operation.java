@@ -0,0 +1,40 @@
+package com.example.notification.loadtest;
+
+import java.util.Locale;
+
+/**
+ * Операции нагрузки. Имена — ключи в --mix.
+ */
+enum Operation {
+
+    /** SendNotification, как его вызывает NotificationGrpcClient сервиса расписания. */
+    UNARY,
+    /** SendNotifications: поток из --stream-size уведомлений, задержка — до итогового ответа. */
+    STREAM,
+    /** GET /api/notifications?limit=50 */
+    PAGE,
+    /** GET /api/notifications/recent?limit=50 */
+    RECENT,
+    /** GET /api/users/{userId}/notifications?limit=50 */
+    USER,
+    /** GET /api/notifications/{id} */
+    BY_ID,
+    /**
+     * GET /api/notifications/recent без параметров с If-None-Match последнего полученного ETag,
+     * как опрашивающий клиент; 304 — успешный ответ.
+     */
+    POLL;
+
+    String key() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key().equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + key + "'");
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.notification.config;
+
+import com.example.notification.feed.NotificationFeed;
+import com.example.notification.repository.NotificationStore;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(FeedProperties.class)
+public class FeedConfig {
+
+    @Bean(destroyMethod = "close")
+    public NotificationFeed notificationFeed(NotificationStore notificationStore, FeedProperties properties) {
+        NotificationFeed feed = new NotificationFeed(properties.capacity(), properties.slowSubscriber());
+        notificationStore.addSaveListener(feed::publish);
+        return feed;
+    }
+}
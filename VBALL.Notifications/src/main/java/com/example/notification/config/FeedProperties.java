@@ -0,0 +1,26 @@
+package com.example.notification.config;
+
+import com.example.notification.feed.SlowSubscriberPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки ленты новых уведомлений для подписчиков (Subscribe, SSE).
+ *
+ * @param capacity       сколько последних уведомлений держит лента; подписчик, отставший сильнее, теряет их
+ * @param slowSubscriber что делать с таким подписчиком
+ */
+@ConfigurationProperties(prefix = "notification.feed")
+public record FeedProperties(
+        int capacity,
+        SlowSubscriberPolicy slowSubscriber
+) {
+
+    public FeedProperties {
+        if (capacity <= 0) {
+            capacity = 65536;
+        }
+        if (slowSubscriber == null) {
+            slowSubscriber = SlowSubscriberPolicy.SKIP;
+        }
+    }
+}
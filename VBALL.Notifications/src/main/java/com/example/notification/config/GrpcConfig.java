@@ -0,0 +1,26 @@
+package com.example.notification.config;
+
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties({GrpcIngestProperties.class, IngestLogProperties.class})
+public class GrpcConfig {
+
+    /**
+     * При spring.threads.virtual.enabled=true вызовы gRPC-сервисов выполняются
+     * в виртуальных потоках, как и запросы Tomcat; иначе — в пуле grpc-java по умолчанию.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public GrpcServerConfigurer virtualThreadGrpcExecutor() {
+        return serverBuilder -> serverBuilder.executor(Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("grpc-vt-", 0).factory()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.notification.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.ConstructorBinding;
+
+import java.time.Duration;
+
+/**
+ * Настройки приёма потока SendNotifications.
+ *
+ * @param batchSize     сколько уведомлений копить перед сохранением пачкой
+ * @param maxBatchDelay сколько ждать неполную пачку, прежде чем сохранить её
+ * @param window        сколько принятых, но ещё не сохранённых уведомлений допускается
+ *                      на один поток; следующие запрашиваются у клиента по мере сохранения
+ * @param storeThreads  сколько платформенных потоков сохраняют пачки всех потоков приёма;
+ *                      при spring.threads.virtual.enabled=true не используется
+ */
+@ConfigurationProperties(prefix = "notification.grpc.ingest")
+public record GrpcIngestProperties(
+        int batchSize,
+        Duration maxBatchDelay,
+        int window,
+        int storeThreads
+) {
+
+    @ConstructorBinding
+    public GrpcIngestProperties {
+        if (batchSize <= 0) {
+            batchSize = 512;
+        }
+        if (maxBatchDelay == null) {
+            maxBatchDelay = Duration.ofMillis(5);
+        }
+        if (window <= 0) {
+            window = 4 * batchSize;
+        }
+        if (storeThreads <= 0) {
+            storeThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    public GrpcIngestProperties(int batchSize, Duration maxBatchDelay, int window) {
+        this(batchSize, maxBatchDelay, window, 0);
+    }
+}
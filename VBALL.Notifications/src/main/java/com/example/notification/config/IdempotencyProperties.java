@@ -0,0 +1,34 @@
+package com.example.notification.config;
+
+import com.example.notification.service.IdempotencyCache;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки ключей идемпотентности приёма (поле idempotency_key в gRPC, заголовок Idempotency-Key в REST).
+ *
+ * @param maxKeys сколько ключей помнить; при переполнении забываются самые старые
+ * @param window  сколько помнить ключ после первого запроса с ним
+ * @param pendingWait сколько повтор ждёт ключ, который ещё сохраняет первый запрос;
+ *                    дольше — повтор отклоняется
+ */
+@ConfigurationProperties(prefix = "notification.idempotency")
+public record IdempotencyProperties(
+        int maxKeys,
+        Duration window,
+        Duration pendingWait
+) {
+
+    public IdempotencyProperties {
+        if (maxKeys <= 0) {
+            maxKeys = IdempotencyCache.DEFAULT_MAX_KEYS;
+        }
+        if (window == null || window.isZero() || window.isNegative()) {
+            window = IdempotencyCache.DEFAULT_WINDOW;
+        }
+        if (pendingWait == null || pendingWait.isNegative()) {
+            pendingWait = IdempotencyCache.DEFAULT_PENDING_WAIT;
+        }
+    }
+}
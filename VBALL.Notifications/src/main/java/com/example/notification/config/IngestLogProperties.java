@@ -0,0 +1,33 @@
+package com.example.notification.config;
+
+import com.example.notification.grpc.IngestLogMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Логирование приёма уведомлений по gRPC.
+ *
+ * @param mode             что писать о каждом уведомлении
+ * @param samplesPerSecond сколько строк об отдельных уведомлениях в секунду допускает SAMPLED
+ * @param summaryInterval  период сводки: принято, ошибок, разбивка по уровням
+ */
+@ConfigurationProperties(prefix = "notification.grpc.ingest.log")
+public record IngestLogProperties(
+        IngestLogMode mode,
+        int samplesPerSecond,
+        Duration summaryInterval
+) {
+
+    public IngestLogProperties {
+        if (mode == null) {
+            mode = IngestLogMode.SAMPLED;
+        }
+        if (samplesPerSecond <= 0) {
+            samplesPerSecond = 10;
+        }
+        if (summaryInterval == null) {
+            summaryInterval = Duration.ofMinutes(1);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.notification.config;
+
+import com.example.notification.feed.NotificationFeed;
+import com.example.notification.grpc.NotificationGrpcServiceImpl;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.service.NotificationRetentionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public NotificationMetrics notificationMetrics(NotificationStore notificationStore,
+                                                   NotificationRetentionService retentionService,
+                                                   NotificationGrpcServiceImpl grpcService,
+                                                   NotificationFeed notificationFeed) {
+        return new NotificationMetrics(notificationStore, retentionService, grpcService, notificationFeed);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseSizeFilter> responseSizeFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ResponseSizeFilter> registration =
+                new FilterRegistrationBean<>(new ResponseSizeFilter(meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.notification.config;
+
+import com.example.notification.feed.NotificationFeed;
+import com.example.notification.grpc.NotificationGrpcServiceImpl;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoreMetrics;
+import com.example.notification.repository.StoreOperation;
+import com.example.notification.service.NotificationRetentionService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Метрики хранилища, вытеснения, ленты и потокового приёма: те же величины, что отдаёт
+ * {@link NotificationStoreEndpoint}, плюс число и время операций хранилища.
+ * Все метры регистрируются при старте, на пути операции ничего не выделяется.
+ */
+public class NotificationMetrics implements MeterBinder {
+
+    private final NotificationStore notificationStore;
+    private final NotificationRetentionService retentionService;
+    private final NotificationGrpcServiceImpl grpcService;
+    private final NotificationFeed notificationFeed;
+
+    public NotificationMetrics(NotificationStore notificationStore,
+                               NotificationRetentionService retentionService,
+                               NotificationGrpcServiceImpl grpcService,
+                               NotificationFeed notificationFeed) {
+        this.notificationStore = notificationStore;
+        this.retentionService = retentionService;
+        this.grpcService = grpcService;
+        this.notificationFeed = notificationFeed;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "notification.store.size", "Stored notifications", notificationStore,
+                NotificationStore::size);
+        gauge(registry, "notification.store.users", "Recipients with at least one notification", notificationStore,
+                NotificationStore::userCount);
+        Gauge.builder("notification.store.message.arena", notificationStore, NotificationStore::messageArenaBytes)
+                .description("Memory reserved for notification texts")
+                .baseUnit("bytes")
+                .register(registry);
+        evicted(registry, "age", NotificationRetentionService::getEvictedByAge);
+        evicted(registry, "count", NotificationRetentionService::getEvictedByCount);
+        evicted(registry, "type", NotificationRetentionService::getEvictedByType);
+
+        gauge(registry, "notification.grpc.ingest.in.flight", "Streamed notifications accepted but not yet stored",
+                grpcService, NotificationGrpcServiceImpl::inFlightMessages);
+        gauge(registry, "notification.feed.subscribers", "Live feed subscribers", notificationFeed,
+                NotificationFeed::subscriberCount);
+        FunctionCounter.builder("notification.feed.published", notificationFeed, NotificationFeed::published)
+                .description("Notifications published to the live feed")
+                .register(registry);
+
+        notificationStore.setMetrics(storeTimers(registry));
+    }
+
+    /**
+     * Регистрирует notification.store.operation (число и суммарное время) на каждую
+     * {@link StoreOperation}. Операция только прибавляет к двум LongAdder, значения
+     * читаются при сборе метрик: Timer с гистограммой стоил бы дороже самого findPage.
+     * Квантили задержек — у http.server.requests и grpc.server.*.
+     */
+    public static StoreMetrics storeTimers(MeterRegistry registry) {
+        LongAdder[] counts = new LongAdder[StoreOperation.values().length];
+        LongAdder[] nanos = new LongAdder[counts.length];
+        for (StoreOperation operation : StoreOperation.values()) {
+            LongAdder count = new LongAdder();
+            LongAdder total = new LongAdder();
+            counts[operation.ordinal()] = count;
+            nanos[operation.ordinal()] = total;
+            FunctionTimer.builder("notification.store.operation", operation,
+                            ignored -> count.sum(), ignored -> total.sum(), TimeUnit.NANOSECONDS)
+                    .description("Notification store operations, including the wait for the journal")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        return (operation, elapsed) -> {
+            counts[operation.ordinal()].increment();
+            nanos[operation.ordinal()].add(elapsed);
+        };
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, String description, T target,
+                                  ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value).description(description).register(registry);
+    }
+
+    private void evicted(MeterRegistry registry, String reason, ToDoubleFunction<NotificationRetentionService> count) {
+        FunctionCounter.builder("notification.store.evicted", retentionService, count)
+                .description("Notifications removed by retention")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.notification.config;
+
+import com.example.notification.feed.NotificationFeed;
+import com.example.notification.grpc.NotificationGrpcServiceImpl;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.service.NotificationRetentionService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator-эндпоинт /actuator/notificationstore с размером хранилища, счётчиками вытеснения
+ * глубиной очереди потокового приёма и состоянием ленты подписок.
+ */
+@Component
+@Endpoint(id = "notificationstore")
+public class NotificationStoreEndpoint {
+
+    private final NotificationStore notificationStore;
+    private final NotificationRetentionService retentionService;
+    private final NotificationGrpcServiceImpl grpcService;
+    private final NotificationFeed notificationFeed;
+
+    public NotificationStoreEndpoint(NotificationStore notificationStore,
+                                     NotificationRetentionService retentionService,
+                                     NotificationGrpcServiceImpl grpcService,
+                                     NotificationFeed notificationFeed) {
+        this.notificationStore = notificationStore;
+        this.retentionService = retentionService;
+        this.grpcService = grpcService;
+        this.notificationFeed = notificationFeed;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> evicted = new LinkedHashMap<>();
+        evicted.put("age", retentionService.getEvictedByAge());
+        evicted.put("count", retentionService.getEvictedByCount());
+        evicted.put("type", retentionService.getEvictedByType());
+
+        Map<String, Object> ingest = new LinkedHashMap<>();
+        ingest.put("inFlight", grpcService.inFlightMessages());
+        ingest.put("window", grpcService.ingestWindow());
+
+        Map<String, Object> feed = new LinkedHashMap<>();
+        feed.put("subscribers", notificationFeed.subscriberCount());
+        feed.put("published", notificationFeed.published());
+        feed.put("capacity", notificationFeed.capacity());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", notificationStore.size());
+        stats.put("users", notificationStore.userCount());
+        stats.put("messageArenaBytes", notificationStore.messageArenaBytes());
+        stats.put("evicted", evicted);
+        stats.put("grpcIngest", ingest);
+        stats.put("feed", feed);
+        return stats;
+    }
+}
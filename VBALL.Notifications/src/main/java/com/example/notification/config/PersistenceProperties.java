@@ -0,0 +1,52 @@
+package com.example.notification.config;
+
+import com.example.notification.persistence.FsyncPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки журнала, который делает хранилище уведомлений переживающим перезапуск.
+ *
+ * @param enabled             включает запись журнала; по умолчанию хранилище только in-memory
+ * @param directory           каталог с сегментами журнала
+ * @param fsync               политика сброса на диск
+ * @param groupCommitInterval период fsync для политики GROUP
+ * @param segmentSize         размер, после которого начинается новый сегмент
+ * @param snapshotInterval    период проверки, не пора ли сделать снимок
+ * @param snapshotMinRecords  минимальное число новых записей журнала для очередного снимка
+ */
+@ConfigurationProperties(prefix = "notification.persistence")
+public record PersistenceProperties(
+        boolean enabled,
+        Path directory,
+        FsyncPolicy fsync,
+        Duration groupCommitInterval,
+        DataSize segmentSize,
+        Duration snapshotInterval,
+        long snapshotMinRecords
+) {
+
+    public PersistenceProperties {
+        if (directory == null) {
+            directory = Path.of("data", "wal");
+        }
+        if (fsync == null) {
+            fsync = FsyncPolicy.GROUP;
+        }
+        if (groupCommitInterval == null) {
+            groupCommitInterval = Duration.ofMillis(10);
+        }
+        if (segmentSize == null) {
+            segmentSize = DataSize.ofMegabytes(64);
+        }
+        if (snapshotInterval == null) {
+            snapshotInterval = Duration.ofMinutes(10);
+        }
+        if (snapshotMinRecords <= 0) {
+            snapshotMinRecords = 100_000;
+        }
+    }
+}
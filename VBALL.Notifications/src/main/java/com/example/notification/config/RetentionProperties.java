@@ -0,0 +1,35 @@
+package com.example.notification.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Настройки хранения уведомлений.
+ *
+ * @param maxAge     максимальный возраст уведомления; null — без ограничения
+ * @param maxCount   максимальное общее число уведомлений; 0 — без ограничения
+ * @param maxPerType ограничение числа уведомлений по типу (INFO, WARNING, ...)
+ * @param batchSize  сколько записей вытесняется за один проход по каждому правилу
+ * @param interval   пауза между запусками фонового вытеснения
+ */
+@ConfigurationProperties(prefix = "notification.retention")
+public record RetentionProperties(
+        Duration maxAge,
+        int maxCount,
+        Map<String, Integer> maxPerType,
+        int batchSize,
+        Duration interval
+) {
+
+    public RetentionProperties {
+        maxPerType = maxPerType != null ? Map.copyOf(maxPerType) : Map.of();
+        if (batchSize <= 0) {
+            batchSize = 10_000;
+        }
+        if (interval == null) {
+            interval = Duration.ofSeconds(5);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.notification.config;
+
+import com.example.notification.persistence.WriteAheadLog;
+import com.example.notification.repository.MessageArena;
+import com.example.notification.repository.NotificationJournal;
+import com.example.notification.repository.NotificationStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({PersistenceProperties.class, StoreProperties.class})
+public class StoreConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "notification.persistence", name = "enabled", havingValue = "true")
+    public WriteAheadLog writeAheadLog(PersistenceProperties properties) {
+        return new WriteAheadLog(
+                properties.directory(),
+                properties.fsync(),
+                properties.segmentSize().toBytes(),
+                properties.groupCommitInterval());
+    }
+
+    @Bean
+    public NotificationStore notificationStore(ObjectProvider<WriteAheadLog> writeAheadLog,
+                                               StoreProperties properties) {
+        NotificationJournal journal = writeAheadLog.getIfAvailable();
+        MessageArena arena = new MessageArena(
+                Math.toIntExact(properties.arenaChunkSize().toBytes()), properties.offHeapMessages());
+        return new NotificationStore(
+                journal != null ? journal : NotificationJournal.NONE, arena, properties.fullTextSearch());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.notification.config;
+
+import com.example.notification.repository.MessageArena;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Настройки размещения уведомлений в памяти.
+ *
+ * @param offHeapMessages хранить тексты уведомлений в direct-буферах вне кучи
+ * @param arenaChunkSize  размер чанка арены для текстов
+ * @param fullTextSearch  вести инвертированный индекс для поиска по тексту
+ */
+@ConfigurationProperties(prefix = "notification.store")
+public record StoreProperties(
+        boolean offHeapMessages,
+        DataSize arenaChunkSize,
+        boolean fullTextSearch
+) {
+
+    public StoreProperties {
+        if (arenaChunkSize == null) {
+            arenaChunkSize = DataSize.ofBytes(MessageArena.DEFAULT_CHUNK_SIZE);
+        }
+    }
+}
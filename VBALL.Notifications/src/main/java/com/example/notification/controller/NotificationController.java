@@ -1,33 +1,199 @@
 package com.example.notification.controller;
 
+import com.example.notification.dto.BatchResponse;
+import com.example.notification.dto.BulkDeleteRequest;
+import com.example.notification.dto.NotificationPage;
 import com.example.notification.dto.NotificationRequest;
 import com.example.notification.dto.NotificationResponse;
+import com.example.notification.dto.NotificationStats;
+import com.example.notification.exception.InvalidRequestException;
+import com.example.notification.feed.FeedSink;
+import com.example.notification.feed.FeedSubscription;
 import com.example.notification.service.NotificationService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final int RECENT_DAYS = 2;
+    static final int EXPORT_CHUNK_BYTES = 64 * 1024;
+    /** Сколько живёт SSE-подписка; после этого клиент переподключается. */
+    static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+
     private final NotificationService notificationService;
+    private final VersionedResponseCache responses;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter exportWriter;
+    private final Validator validator;
 
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService, ObjectMapper objectMapper,
+                                  Validator validator) {
         this.notificationService = notificationService;
+        this.validator = validator;
+        this.responses = new VersionedResponseCache(notificationService, objectMapper);
+        this.objectMapper = objectMapper;
+        this.exportWriter = objectMapper.writerFor(NotificationResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    /**
+     * Без параметров возвращает весь список. С limit/after/type/from/to — страницу
+     * по курсору; курсор следующей страницы передаётся в заголовке X-Next-Cursor.
+     * Ответ несёт ETag версии хранилища: пока записей не было, If-None-Match даёт 304.
+     */
     @GetMapping
-    public ResponseEntity<List<NotificationResponse>> getAllNotifications() {
-        return ResponseEntity.ok(notificationService.getAllNotifications());
+    public ResponseEntity<byte[]> getAllNotifications(
+            ServletWebRequest request,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (limit == null && after == null && type == null && from == null && to == null) {
+            return responses.get(request, () -> new NotificationPage(notificationService.getAllNotifications(), null));
+        }
+        return responses.get(request, () -> notificationService.getNotificationsPage(from, to, type, after, limit));
     }
 
+    /**
+     * Уведомления за последние два дня. ETag учитывает и версию хранилища, и сдвиг окна.
+     */
     @GetMapping("/recent")
-    public ResponseEntity<List<NotificationResponse>> getRecentNotifications() {
-        return ResponseEntity.ok(notificationService.getNotificationsFromLastDays(2));
+    public ResponseEntity<byte[]> getRecentNotifications(
+            ServletWebRequest request,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> type) {
+        Duration window = Duration.ofDays(RECENT_DAYS);
+        if (limit == null && after == null && type == null) {
+            return responses.get(request, window,
+                    () -> new NotificationPage(notificationService.getNotificationsFromLastDays(RECENT_DAYS), null));
+        }
+        return responses.get(request, window,
+                () -> notificationService.getRecentNotificationsPage(RECENT_DAYS, type, after, limit));
+    }
+
+    /**
+     * Поиск по словам заголовка и текста: должны встретиться все слова запроса,
+     * слово со звёздочкой в конце ищется как префикс. Сначала самые новые.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<byte[]> searchNotifications(
+            ServletWebRequest request,
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return responses.get(request, () -> notificationService.searchNotifications(q, after, limit));
+    }
+
+    /**
+     * Лента новых уведомлений в формате Server-Sent Events: событие notification
+     * на каждое сохранённое уведомление, подходящее под фильтры, и событие lag
+     * с числом пропущенных, если клиент не успевает читать.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Set<String> type) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        FeedSubscription subscription = notificationService.subscribe(userId, type, new FeedSink<>() {
+            @Override
+            public boolean offer(NotificationResponse notification) {
+                send(SseEmitter.event().name("notification").id(String.valueOf(notification.getId()))
+                        .data(notification, MediaType.APPLICATION_JSON));
+                return true;
+            }
+
+            @Override
+            public void lagged(long missed) {
+                send(SseEmitter.event().name("lag").data(missed));
+            }
+
+            @Override
+            public void closed(String reason) {
+                emitter.complete();
+            }
+
+            private void send(SseEmitter.SseEventBuilder event) {
+                try {
+                    emitter.send(event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    /**
+     * Выгрузка всех уведомлений в формате NDJSON — по объекту на строку — в порядке createdAt,
+     * с теми же фильтрами from/to/type, что и GET /api/notifications. Хранилище обходится лениво,
+     * а ответ уходит кусками по EXPORT_CHUNK_BYTES, так что память не растёт с размером хранилища.
+     */
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportNotifications(
+            @RequestParam(required = false) Set<String> type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) throws IOException {
+        Iterator<NotificationResponse> notifications = notificationService.exportNotifications(from, to, type).iterator();
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (OutputStream out = new BufferedOutputStream(response.getOutputStream(), EXPORT_CHUNK_BYTES);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            while (notifications.hasNext()) {
+                exportWriter.writeValue(generator, notifications.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    /**
+     * Число уведомлений по уровням в корзинах по минутам или часам за период, для графиков.
+     * Отвечает по счётчикам хранилища, не читая уведомлений.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<NotificationStats> getStats(
+            @RequestParam(required = false) String interval,
+            @RequestParam(required = false) Set<String> type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(notificationService.getStats(interval, from, to, type));
     }
 
     @GetMapping("/{id}")
@@ -35,11 +201,75 @@ public class NotificationController {
         return ResponseEntity.ok(notificationService.getNotificationById(id));
     }
 
+    /**
+     * Повтор запроса с тем же заголовком Idempotency-Key возвращает уже созданное уведомление.
+     */
     @PostMapping
     public ResponseEntity<NotificationResponse> createNotification(
-            @Valid @RequestBody NotificationRequest request) {
+            @Valid @RequestBody NotificationRequest request,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(notificationService.createNotification(request));
+                .body(notificationService.createNotification(request, idempotencyKey));
+    }
+
+    /**
+     * Создаёт до {@link NotificationService#MAX_BATCH_SIZE} уведомлений одним запросом.
+     * Каждый элемент проверяется отдельно: не прошедшие проверку получают в ответе статус 400,
+     * остальные сохраняются одной пачкой и получают 201 с id.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResponse> createNotifications(@RequestBody List<NotificationRequest> requests) {
+        checkBatchSize(requests.size());
+        BatchResponse.Item[] items = new BatchResponse.Item[requests.size()];
+        List<NotificationRequest> valid = new ArrayList<>(requests.size());
+        int[] validAt = new int[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            String error = validate(requests.get(i));
+            if (error != null) {
+                items[i] = new BatchResponse.Item(i, HttpStatus.BAD_REQUEST.value(), null, error);
+            } else {
+                validAt[valid.size()] = i;
+                valid.add(requests.get(i));
+            }
+        }
+        List<NotificationResponse> created = notificationService.createNotifications(valid);
+        for (int j = 0; j < created.size(); j++) {
+            items[validAt[j]] = new BatchResponse.Item(validAt[j], HttpStatus.CREATED.value(), created.get(j).getId(), null);
+        }
+        return ResponseEntity.ok(new BatchResponse(created.size(), items.length - created.size(), List.of(items)));
+    }
+
+    /**
+     * Удаляет уведомления по списку id (до {@link NotificationService#MAX_BATCH_SIZE}), отвечая
+     * статусом 204 или 404 на каждый, либо все уведомления, подходящие под from/to/types;
+     * во втором случае в ответе только число удалённых.
+     */
+    @PostMapping("/batch/delete")
+    public ResponseEntity<BatchResponse> deleteNotifications(@RequestBody BulkDeleteRequest request) {
+        boolean hasFilter = request.from() != null || request.to() != null
+                || (request.types() != null && !request.types().isEmpty());
+        if (request.ids() == null) {
+            int deleted = notificationService.deleteNotificationsMatching(request.from(), request.to(), request.types());
+            return ResponseEntity.ok(new BatchResponse(deleted, 0, List.of()));
+        }
+        if (hasFilter) {
+            throw new InvalidRequestException("Specify either ids or from/to/types, not both");
+        }
+        checkBatchSize(request.ids().size());
+        boolean[] removed = notificationService.deleteNotifications(request.ids());
+        List<BatchResponse.Item> items = new ArrayList<>(removed.length);
+        int deleted = 0;
+        for (int i = 0; i < removed.length; i++) {
+            Long id = request.ids().get(i);
+            if (removed[i]) {
+                deleted++;
+                items.add(new BatchResponse.Item(i, HttpStatus.NO_CONTENT.value(), id, null));
+            } else {
+                items.add(new BatchResponse.Item(i, HttpStatus.NOT_FOUND.value(), id,
+                        "Notification not found with id: " + id));
+            }
+        }
+        return ResponseEntity.ok(new BatchResponse(deleted, removed.length - deleted, items));
     }
 
     @PutMapping("/{id}")
@@ -54,4 +284,34 @@ public class NotificationController {
         notificationService.deleteNotification(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Проверяет размер до разбора элементов, чтобы не проверять их впустую; сервис проверяет ещё раз.
+     */
+    private static void checkBatchSize(int size) {
+        if (size > NotificationService.MAX_BATCH_SIZE) {
+            throw new InvalidRequestException(
+                    "Batch must not contain more than " + NotificationService.MAX_BATCH_SIZE + " items");
+        }
+    }
+
+    /**
+     * Те же ограничения, что @Valid проверяет у одиночного POST.
+     *
+     * @return сообщения нарушений через «; » по алфавиту полей или null, если элемент корректен
+     */
+    private String validate(NotificationRequest request) {
+        if (request == null) {
+            return "Notification is required";
+        }
+        Set<ConstraintViolation<NotificationRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        Set<String> messages = new TreeSet<>();
+        for (ConstraintViolation<NotificationRequest> violation : violations) {
+            messages.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return String.join("; ", messages);
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.notification.controller;
+
+import com.example.notification.service.NotificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/users/{userId}/notifications")
+public class UserNotificationController {
+
+    private final NotificationService notificationService;
+    private final VersionedResponseCache responses;
+
+    public UserNotificationController(NotificationService notificationService, ObjectMapper objectMapper) {
+        this.notificationService = notificationService;
+        this.responses = new VersionedResponseCache(notificationService, objectMapper);
+    }
+
+    /**
+     * Ящик пользователя в порядке createdAt. Поддерживает те же параметры
+     * пагинации и фильтрации, что и GET /api/notifications, и тот же ETag по версии хранилища.
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> getUserNotifications(
+            ServletWebRequest request,
+            @PathVariable String userId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return responses.get(request,
+                () -> notificationService.getUserNotificationsPage(userId, from, to, type, after, limit));
+    }
+}
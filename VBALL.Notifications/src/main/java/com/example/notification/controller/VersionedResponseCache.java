@@ -0,0 +1,160 @@
+package com.example.notification.controller;
+
+import com.example.notification.dto.NotificationPage;
+import com.example.notification.dto.NotificationResponse;
+import com.example.notification.service.NotificationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Условные GET и кэш сериализованных ответов чтения, привязанные к версии хранилища.
+ * ETag ответа строится из версии и ключа запроса без обращения к хранилищу, поэтому
+ * запрос с совпадающим If-None-Match получает 304 без выборки и сериализации,
+ * а повтор того же запроса — готовые байты, пока версия не изменилась; любая запись
+ * делает весь кэш недействительным. Ключ кэша — URI вместе с параметрами запроса.
+ */
+final class VersionedResponseCache {
+
+    static final int MAX_ENTRIES = 256;
+    static final int MAX_BODY_BYTES = 4 << 20;
+    static final long MAX_CACHED_BYTES = 32L << 20;
+    /** Шаг, с которым меняется ETag ответов со скользящим окном. */
+    static final long WINDOW_ETAG_BUCKET_MILLIS = 10_000;
+
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    VersionedResponseCache(NotificationService notificationService, ObjectMapper objectMapper) {
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+    }
+
+    ResponseEntity<byte[]> get(ServletWebRequest request, Supplier<NotificationPage> query) {
+        return get(request, null, query);
+    }
+
+    /**
+     * @param window для ответов со скользящим окном «за последние N»: содержимое меняется
+     *               и без записей, когда самое старое уведомление ответа выходит из окна,
+     *               поэтому запись кэша живёт только до этого момента, ETag меняется
+     *               каждые {@value #WINDOW_ETAG_BUCKET_MILLIS} мс, а Last-Modified не отдаётся
+     * @return null, если ответ уже записан как 304
+     */
+    ResponseEntity<byte[]> get(ServletWebRequest request, Duration window, Supplier<NotificationPage> query) {
+        long version = notificationService.version();
+        String key = key(request);
+        if (request.checkNotModified(etag(version, key, window), window == null ? lastModified() : -1)) {
+            return null;
+        }
+        LocalDateTime now = window != null ? LocalDateTime.now() : null;
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.validAt(version, now)) {
+            entry = render(version, window, query.get());
+            put(key, entry);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache());
+        if (entry.nextCursor() != null) {
+            builder.header(NotificationController.NEXT_CURSOR_HEADER, entry.nextCursor());
+        }
+        return builder.body(entry.body());
+    }
+
+    private String etag(long version, String key, Duration window) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch).append('-').append(version)
+                .append('-').append(Integer.toHexString(key.hashCode()));
+        if (window != null) {
+            etag.append('-').append(System.currentTimeMillis() / WINDOW_ETAG_BUCKET_MILLIS);
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Last-Modified с точностью до секунды; если в текущей секунде ещё возможна запись,
+     * он не отдаётся, иначе клиент с If-Modified-Since пропустил бы её.
+     */
+    private long lastModified() {
+        long lastModified = notificationService.lastModified();
+        return System.currentTimeMillis() / 1000 > lastModified / 1000 ? lastModified : -1;
+    }
+
+    private Entry render(long version, Duration window, NotificationPage page) {
+        LocalDateTime expiresAt = null;
+        if (window != null) {
+            for (NotificationResponse item : page.items()) {
+                LocalDateTime leaves = item.getCreatedAt().plus(window);
+                if (expiresAt == null || leaves.isBefore(expiresAt)) {
+                    expiresAt = leaves;
+                }
+            }
+        }
+        try {
+            return new Entry(version, expiresAt, page.nextCursor(), objectMapper.writeValueAsBytes(page.items()));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        if (entry.bytes() > MAX_BODY_BYTES) {
+            return;
+        }
+        if (entries.size() >= MAX_ENTRIES || cachedBytes.get() + entry.bytes() > MAX_CACHED_BYTES) {
+            evictStale(entry.version());
+            if (entries.size() >= MAX_ENTRIES || cachedBytes.get() + entry.bytes() > MAX_CACHED_BYTES) {
+                return;
+            }
+        }
+        Entry previous = entries.put(key, entry);
+        cachedBytes.addAndGet(entry.bytes() - (previous != null ? previous.bytes() : 0));
+    }
+
+    private void evictStale(long version) {
+        LocalDateTime now = LocalDateTime.now();
+        entries.forEach((key, entry) -> {
+            if (!entry.validAt(version, now) && entries.remove(key, entry)) {
+                cachedBytes.addAndGet(-entry.bytes());
+            }
+        });
+    }
+
+    private static String key(ServletWebRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequest().getRequestURI());
+        request.getParameterMap().forEach((name, values) -> {
+            for (String value : values) {
+                key.append('\n').append(name).append('=').append(value);
+            }
+        });
+        return key.toString();
+    }
+
+    /**
+     * @param expiresAt момент, когда самое старое уведомление выйдет из окна; null — без окна
+     */
+    private record Entry(long version, LocalDateTime expiresAt, String nextCursor, byte[] body) {
+
+        boolean validAt(long currentVersion, LocalDateTime now) {
+            return version == currentVersion && (expiresAt == null || now.isBefore(expiresAt));
+        }
+
+        long bytes() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.notification.dto;
+
+import java.util.List;
+
+/**
+ * Результат пакетной операции: итоги и по элементу на каждый элемент запроса, в том же порядке.
+ * Для удаления по фильтру items пуст, а succeeded — число удалённых.
+ */
+public record BatchResponse(int succeeded, int failed, List<Item> items) {
+
+    /**
+     * @param index  номер элемента в запросе
+     * @param status HTTP-статус, который получил бы одиночный запрос: 201, 204, 400 или 404
+     * @param id     id созданного или удаляемого уведомления; null, если элемент не прошёл проверку
+     * @param error  причина отказа; null при успехе
+     */
+    public record Item(int index, int status, Long id, String error) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.notification.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Пакетное удаление: либо список id, либо фильтр по периоду и типам, как у GET /api/notifications.
+ *
+ * @param from  нижняя граница createdAt, включительно
+ * @param to    верхняя граница createdAt, исключительно
+ * @param types типы; null или пустое — любые
+ */
+public record BulkDeleteRequest(List<Long> ids, LocalDateTime from, LocalDateTime to, Set<String> types) {
+}
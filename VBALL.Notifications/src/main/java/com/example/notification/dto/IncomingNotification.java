@@ -0,0 +1,20 @@
+package com.example.notification.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Уведомление, принятое по gRPC, до сохранения.
+ *
+ * @param userId  получатель; пустой — общее уведомление
+ * @param level   уровень, он же тип и заголовок; null — INFO
+ * @param content текст
+ * @param date    дата; null — момент сохранения
+ * @param idempotencyKey ключ идемпотентности; пустой — без проверки повторов
+ */
+public record IncomingNotification(String userId, String level, String content, LocalDateTime date,
+                                   String idempotencyKey) {
+
+    public IncomingNotification(String userId, String level, String content, LocalDateTime date) {
+        this(userId, level, content, date, null);
+    }
+}
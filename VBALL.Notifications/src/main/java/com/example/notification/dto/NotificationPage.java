@@ -0,0 +1,9 @@
+package com.example.notification.dto;
+
+import java.util.List;
+
+/**
+ * Страница уведомлений и курсор для запроса следующей (null, если страниц больше нет).
+ */
+public record NotificationPage(List<NotificationResponse> items, String nextCursor) {
+}
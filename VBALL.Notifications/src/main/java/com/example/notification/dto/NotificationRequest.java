@@ -15,6 +15,9 @@ public class NotificationRequest {
 
     private String type;
 
+    @Size(max = 64, message = "User id must be less than 64 characters")
+    private String userId;
+
     public NotificationRequest() {
     }
 
@@ -47,4 +50,12 @@ public class NotificationRequest {
     public void setType(String type) {
         this.type = type;
     }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
 }
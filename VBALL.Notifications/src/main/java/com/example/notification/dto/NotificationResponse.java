@@ -9,6 +9,7 @@ public class NotificationResponse {
     private String message;
     private String type;
     private LocalDateTime createdAt;
+    private String userId;
 
     public NotificationResponse() {
     }
@@ -60,4 +61,12 @@ public class NotificationResponse {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.notification.dto;
+
+import com.example.notification.repository.RollupInterval;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Число уведомлений по уровням за период, выровненный по границам корзин.
+ *
+ * @param totals  уровень → число уведомлений за весь период
+ * @param buckets непустые корзины по возрастанию начала
+ */
+public record NotificationStats(RollupInterval interval, LocalDateTime from, LocalDateTime to,
+                                Map<String, Long> totals, List<Bucket> buckets) {
+
+    public record Bucket(LocalDateTime start, Map<String, Long> counts) {
+    }
+}
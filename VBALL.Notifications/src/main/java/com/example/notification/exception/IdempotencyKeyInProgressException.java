@@ -0,0 +1,11 @@
+package com.example.notification.exception;
+
+/**
+ * Уведомление с тем же ключом идемпотентности всё ещё сохраняет другой запрос.
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.notification.feed;
+
+/**
+ * Получатель ленты одной подписки. Методы вызываются по одному за раз,
+ * но не обязательно из одного потока.
+ */
+public interface FeedSink<T> {
+
+    /**
+     * @return false, если получатель сейчас не готов принять уведомление; тогда оно
+     * не считается доставленным и будет предложено снова после {@link FeedSubscription#resume()}
+     */
+    boolean offer(T item);
+
+    /**
+     * Подписка отстала больше чем на ёмкость ленты, и missed уведомлений пропущено.
+     * Доставка продолжается с самого старого уведомления, оставшегося в ленте.
+     */
+    void lagged(long missed);
+
+    /**
+     * Лента закрыла подписку: отставшего получателя при политике
+     * {@link SlowSubscriberPolicy#DISCONNECT} или при остановке сервиса.
+     */
+    void closed(String reason);
+}
@@ -0,0 +1,128 @@
+package com.example.notification.feed;
+
+import com.example.notification.repository.StoredNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Подписка на ленту: своя позиция в кольцевом буфере и фильтр. Доставка идёт
+ * задачей в executor ленты, не больше одной задачи на подписку одновременно,
+ * так что медленный получатель занимает только свою задачу.
+ */
+public final class FeedSubscription {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedSubscription.class);
+
+    private final NotificationFeed feed;
+    private final Predicate<StoredNotification> filter;
+    private final FeedSink<StoredNotification> sink;
+    private final Executor executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong resumes = new AtomicLong();
+    private volatile boolean cancelled;
+    private volatile boolean waitingForSink;
+    private volatile long missed;
+    private long cursor;
+
+    FeedSubscription(NotificationFeed feed, long cursor, Predicate<StoredNotification> filter,
+                     FeedSink<StoredNotification> sink, Executor executor) {
+        this.feed = feed;
+        this.cursor = cursor;
+        this.filter = filter;
+        this.sink = sink;
+        this.executor = executor;
+    }
+
+    /**
+     * Получатель снова готов принимать после того, как {@link FeedSink#offer} вернул false.
+     */
+    public void resume() {
+        resumes.incrementAndGet();
+        waitingForSink = false;
+        signal();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        feed.remove(this);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return сколько уведомлений пропущено из-за отставания за всё время подписки
+     */
+    public long missed() {
+        return missed;
+    }
+
+    void signal() {
+        if (!cancelled && !waitingForSink && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    void close(String reason) {
+        if (!cancelled) {
+            cancelled = true;
+            sink.closed(reason);
+        }
+    }
+
+    private void drain() {
+        try {
+            deliver();
+        } catch (RuntimeException e) {
+            logger.warn("Feed subscriber failed, unsubscribing: {}", e.getMessage());
+            cancel();
+        } finally {
+            scheduled.set(false);
+        }
+        // публикация могла прийти между последним чтением и сбросом флага
+        if (!waitingForSink && feed.published() > cursor) {
+            signal();
+        }
+    }
+
+    private void deliver() {
+        NotificationFeed.Ring ring = feed.ring();
+        while (!cancelled) {
+            NotificationFeed.Entry entry = ring.get(cursor);
+            if (entry == null || entry.sequence() < cursor) {
+                return;
+            }
+            if (entry.sequence() > cursor) {
+                // слот перезаписан: продолжаем с самого старого уведомления, ещё оставшегося в буфере
+                long resumeAt = Math.max(ring.next() - ring.capacity(), cursor + 1);
+                long skipped = resumeAt - cursor;
+                missed += skipped;
+                if (feed.policy() == SlowSubscriberPolicy.DISCONNECT) {
+                    feed.remove(this);
+                    close("Subscriber lagged behind by more than " + ring.capacity() + " notifications");
+                    return;
+                }
+                cursor = resumeAt;
+                sink.lagged(skipped);
+                continue;
+            }
+            long resumed = resumes.get();
+            if (filter.test(entry.notification()) && !sink.offer(entry.notification())) {
+                waitingForSink = true;
+                if (resumes.get() == resumed) {
+                    return;
+                }
+                // получатель успел стать готовым, пока мы выставляли флаг
+                waitingForSink = false;
+                continue;
+            }
+            cursor++;
+        }
+    }
+}
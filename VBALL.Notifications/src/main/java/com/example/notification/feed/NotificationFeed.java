@@ -0,0 +1,179 @@
+package com.example.notification.feed;
+
+import com.example.notification.repository.StoredNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Лента новых уведомлений для подписчиков поверх кольцевого буфера фиксированной ёмкости.
+ * <p>
+ * {@link #publish} вызывается из потока записи и не блокируется: он занимает номер
+ * атомарным инкрементом, кладёт запись в слот и будит поток-диспетчер. Диспетчер
+ * раздаёт сигналы подпискам, а каждая подписка читает буфер со своей позиции
+ * в отдельной задаче. Подписка, отставшая больше чем на ёмкость, обнаруживает это
+ * по перезаписанному слоту и либо пропускает потерянное, либо закрывается
+ * ({@link SlowSubscriberPolicy}). Запись в хранилище от подписчиков не зависит.
+ */
+public class NotificationFeed implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationFeed.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Ring ring;
+    private final SlowSubscriberPolicy policy;
+    private final Set<FeedSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread dispatcher;
+    private volatile boolean dispatcherParked;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity ёмкость буфера, округляется вверх до степени двойки
+     */
+    public NotificationFeed(int capacity, SlowSubscriberPolicy policy) {
+        this.ring = new Ring(capacity);
+        this.policy = policy;
+        this.dispatcher = Thread.ofPlatform().name("notification-feed-dispatcher").daemon().start(this::dispatch);
+    }
+
+    public void publish(StoredNotification notification) {
+        ring.add(notification);
+        if (dispatcherParked) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * Подписывает получателя на уведомления, опубликованные после этого вызова.
+     */
+    public FeedSubscription subscribe(Predicate<StoredNotification> filter, FeedSink<StoredNotification> sink) {
+        if (!running) {
+            throw new IllegalStateException("Notification feed is closed");
+        }
+        FeedSubscription subscription = new FeedSubscription(this, ring.next(), filter, sink, deliveryExecutor);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    public int capacity() {
+        return ring.capacity();
+    }
+
+    /**
+     * @return сколько уведомлений опубликовано за всё время
+     */
+    public long published() {
+        return ring.next();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        for (FeedSubscription subscription : subscriptions) {
+            subscription.close("Notification feed is shutting down");
+        }
+        subscriptions.clear();
+        deliveryExecutor.shutdownNow();
+    }
+
+    Ring ring() {
+        return ring;
+    }
+
+    SlowSubscriberPolicy policy() {
+        return policy;
+    }
+
+    void remove(FeedSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private void dispatch() {
+        long seen = 0;
+        while (running) {
+            long next = ring.next();
+            if (next == seen) {
+                dispatcherParked = true;
+                if (ring.next() == seen && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                dispatcherParked = false;
+                continue;
+            }
+            seen = next;
+            try {
+                for (FeedSubscription subscription : subscriptions) {
+                    subscription.signal();
+                }
+            } catch (RuntimeException e) {
+                // executor закрыт при остановке
+                logger.debug("Feed dispatch stopped: {}", e.getMessage());
+            }
+        }
+    }
+
+    record Entry(long sequence, StoredNotification notification) {
+    }
+
+    /**
+     * Кольцевой буфер с несколькими писателями. Слот хранит запись вместе с её номером,
+     * так что читатель отличает ещё не записанный слот (номер меньше ожидаемого)
+     * от уже перезаписанного (номер больше).
+     */
+    static final class Ring {
+
+        private final AtomicReferenceArray<Entry> slots;
+        private final int mask;
+        private final AtomicLong next = new AtomicLong();
+
+        Ring(int capacity) {
+            if (capacity < 2) {
+                throw new IllegalArgumentException("Feed capacity must be at least 2: " + capacity);
+            }
+            int size = Integer.highestOneBit(capacity - 1) << 1;
+            this.slots = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+
+        void add(StoredNotification notification) {
+            long sequence = next.getAndIncrement();
+            int slot = (int) (sequence & mask);
+            Entry entry = new Entry(sequence, notification);
+            Entry current;
+            do {
+                current = slots.get(slot);
+                if (current != null && current.sequence() > sequence) {
+                    // писатель следующего круга успел раньше: эта запись уже потеряна для всех
+                    return;
+                }
+            } while (!slots.compareAndSet(slot, current, entry));
+        }
+
+        Entry get(long sequence) {
+            return slots.get((int) (sequence & mask));
+        }
+
+        long next() {
+            return next.get();
+        }
+
+        int capacity() {
+            return slots.length();
+        }
+    }
+}
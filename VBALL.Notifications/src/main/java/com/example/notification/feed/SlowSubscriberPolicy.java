@@ -0,0 +1,11 @@
+package com.example.notification.feed;
+
+/**
+ * Что делать с подпиской, которая отстала от ленты больше чем на её ёмкость.
+ */
+public enum SlowSubscriberPolicy {
+    /** Сообщить получателю о пропуске и продолжить с самого старого уведомления в ленте. */
+    SKIP,
+    /** Закрыть подписку. */
+    DISCONNECT
+}
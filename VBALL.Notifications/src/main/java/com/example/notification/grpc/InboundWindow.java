@@ -0,0 +1,60 @@
+package com.example.notification.grpc;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ручное управление входящим потоком одного вызова: у клиента запрошено не больше
+ * window сообщений сверх уже обработанных. Освобождённые места запрашиваются снова,
+ * только когда исходящий поток вызова готов принимать ответы, чтобы клиент,
+ * не читающий подтверждения, не копил их на сервере.
+ */
+final class InboundWindow {
+
+    private final ServerCallStreamObserver<?> call;
+    private final AtomicLong inFlight;
+    private final AtomicInteger owed = new AtomicInteger();
+    private volatile boolean finished;
+
+    /**
+     * Создаётся внутри метода сервиса, до возврата входящего StreamObserver.
+     *
+     * @param inFlight общий для всех вызовов счётчик принятых, но не обработанных сообщений
+     */
+    InboundWindow(ServerCallStreamObserver<?> call, int window, AtomicLong inFlight) {
+        this.call = call;
+        this.inFlight = inFlight;
+        call.disableAutoRequest();
+        call.setOnReadyHandler(this::requestOwed);
+        call.request(window);
+    }
+
+    void received() {
+        inFlight.incrementAndGet();
+    }
+
+    void released(int count) {
+        inFlight.addAndGet(-count);
+        owed.addAndGet(count);
+        requestOwed();
+    }
+
+    /**
+     * Клиент закончил передачу: больше ничего не запрашивать.
+     */
+    void finish() {
+        finished = true;
+    }
+
+    private void requestOwed() {
+        if (finished || call.isCancelled() || !call.isReady()) {
+            return;
+        }
+        int count = owed.getAndSet(0);
+        if (count > 0) {
+            call.request(count);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.notification.grpc;
+
+import com.example.notification.config.IngestLogProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Лог приёма уведомлений по gRPC. Строки об отдельных уведомлениях пишутся
+ * в зависимости от {@link IngestLogMode}, остальное сводится в счётчики,
+ * которые {@link #summary()} периодически выводит одной строкой.
+ */
+final class IngestLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestLog.class);
+    /** Предел различных уровней в сводке: уровень присылает клиент. */
+    private static final int MAX_LEVELS = 32;
+    private static final String OTHER_LEVEL = "OTHER";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final IngestLogMode mode;
+    private final int samplesPerSecond;
+    private final LongAdder received = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> byLevel = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> bySentLevel = new ConcurrentHashMap<>();
+    private final AtomicInteger samplesLeft = new AtomicInteger();
+    private volatile long sampleSecond = Long.MIN_VALUE;
+    private long summaryStarted = System.nanoTime();
+
+    IngestLog(IngestLogProperties properties) {
+        this.mode = properties.mode();
+        this.samplesPerSecond = properties.samplesPerSecond();
+    }
+
+    void received(NotificationRequest request) {
+        received.increment();
+        levelCounter(request.getLevel()).increment();
+        if (mode == IngestLogMode.FULL) {
+            logger.info("Received gRPC notification: userId={}, date={}, level={}, content={}",
+                    request.getUserId(), request.getDate(), request.getLevel(), request.getContent());
+        } else if (sample()) {
+            logger.info("Received gRPC notification: userId={}, date={}, level={}, contentLength={}",
+                    request.getUserId(), request.getDate(), request.getLevel(), request.getContent().length());
+        }
+    }
+
+    void stored(long id) {
+        if (mode == IngestLogMode.FULL) {
+            logger.info("Notification stored with ID: {}", id);
+        }
+    }
+
+    void failed(int count) {
+        failed.add(count);
+    }
+
+    void dateFallback(String date) {
+        if (mode == IngestLogMode.FULL || sample()) {
+            logger.warn("Could not parse date '{}', using current time", date);
+        }
+    }
+
+    /**
+     * Снимает и обнуляет счётчики с прошлой сводки.
+     *
+     * @return строка сводки или null, если за это время ничего не принято
+     */
+    String summary() {
+        long now = System.nanoTime();
+        long seconds = Math.max(1, (now - summaryStarted + NANOS_PER_SECOND / 2) / NANOS_PER_SECOND);
+        summaryStarted = now;
+        long receivedCount = received.sumThenReset();
+        long failedCount = failed.sumThenReset();
+        long suppressedCount = suppressed.sumThenReset();
+        Map<String, Long> levels = new TreeMap<>();
+        byLevel.forEach((level, count) -> {
+            long value = count.sumThenReset();
+            if (value > 0) {
+                levels.put(level, value);
+            }
+        });
+        if (receivedCount == 0 && failedCount == 0) {
+            return null;
+        }
+        return String.format("gRPC ingest in last %ds: %d received, %d failed, by level %s, %d log lines suppressed",
+                seconds, receivedCount, failedCount, levels, suppressedCount);
+    }
+
+    void logSummary() {
+        String summary = summary();
+        if (summary != null) {
+            logger.info(summary);
+        }
+    }
+
+    /**
+     * Ограничитель SAMPLED: не больше samplesPerSecond разрешений в секунду.
+     * На стыке секунд может выдать на несколько разрешений больше — для лога это неважно.
+     */
+    private boolean sample() {
+        if (mode == IngestLogMode.SUMMARY) {
+            suppressed.increment();
+            return false;
+        }
+        long second = System.nanoTime() / NANOS_PER_SECOND;
+        if (second != sampleSecond) {
+            sampleSecond = second;
+            samplesLeft.set(samplesPerSecond);
+        }
+        if (samplesLeft.getAndDecrement() > 0) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * Счётчик уровня в том виде, как его прислал клиент: info и INFO считаются вместе,
+     * но регистр приводится только при первой встрече такого написания.
+     */
+    private LongAdder levelCounter(String level) {
+        LongAdder counter = bySentLevel.get(level);
+        if (counter != null) {
+            return counter;
+        }
+        if (bySentLevel.size() >= MAX_LEVELS) {
+            return byLevel.computeIfAbsent(OTHER_LEVEL, ignored -> new LongAdder());
+        }
+        String key = level.isEmpty() || byLevel.size() >= MAX_LEVELS ? OTHER_LEVEL : level.toUpperCase(Locale.ROOT);
+        counter = byLevel.computeIfAbsent(key, ignored -> new LongAdder());
+        LongAdder existing = bySentLevel.putIfAbsent(level, counter);
+        return existing != null ? existing : counter;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.notification.grpc;
+
+/**
+ * Сколько писать в лог о каждом принятом по gRPC уведомлении.
+ */
+public enum IngestLogMode {
+    /** Строка на каждое уведомление вместе с текстом. Только для отладки. */
+    FULL,
+    /** Не больше samplesPerSecond строк в секунду, без текста, плюс периодическая сводка. */
+    SAMPLED,
+    /** Только периодическая сводка. */
+    SUMMARY
+}
@@ -0,0 +1,128 @@
+package com.example.notification.grpc;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Разбор даты в формате {@link java.time.format.DateTimeFormatter#ISO_LOCAL_DATE_TIME}
+ * без исключений и промежуточных объектов: на поток битых дат при приёме
+ * {@link LocalDateTime#parse} тратил больше на исключение, чем на сам разбор.
+ * <p>
+ * Принимает ровно то же, что ISO_LOCAL_DATE_TIME: строчную t, от 0 до 9 знаков долей секунды,
+ * годы со знаком.
+ */
+public final class IsoLocalDateTime {
+
+    private static final int[] NANO_SCALE = {
+            1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1};
+
+    private IsoLocalDateTime() {
+    }
+
+    /**
+     * @return дата или null, если строка не в формате ISO_LOCAL_DATE_TIME или дата не существует
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        int length = text.length();
+        int yearEnd = yearEnd(text, length);
+        if (yearEnd < 0) {
+            return null;
+        }
+        long year = signedYear(text, yearEnd);
+        int at = yearEnd;
+        if (length < at + 12
+                || text.charAt(at) != '-' || text.charAt(at + 3) != '-'
+                || (text.charAt(at + 6) != 'T' && text.charAt(at + 6) != 't')
+                || text.charAt(at + 9) != ':') {
+            return null;
+        }
+        int month = digits(text, at + 1, 2);
+        int day = digits(text, at + 4, 2);
+        int hour = digits(text, at + 7, 2);
+        int minute = digits(text, at + 10, 2);
+        int second = 0;
+        int nano = 0;
+        at += 12;
+        if (length > at) {
+            if (length < at + 3 || text.charAt(at) != ':') {
+                return null;
+            }
+            second = digits(text, at + 1, 2);
+            at += 3;
+            if (length > at) {
+                int fractionDigits = length - at - 1;
+                if (text.charAt(at) != '.' || fractionDigits > 9) {
+                    return null;
+                }
+                int fraction = fractionDigits > 0 ? digits(text, at + 1, fractionDigits) : 0;
+                if (fraction < 0) {
+                    return null;
+                }
+                nano = fraction * NANO_SCALE[fractionDigits];
+            }
+        }
+        if (year < Year.MIN_VALUE || year > Year.MAX_VALUE
+                || month < 1 || month > 12 || day < 1
+                || day > Month.of(month).length(Year.isLeap(year))
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of((int) year, month, day, hour, minute, second, nano);
+    }
+
+    /**
+     * Конец года: без знака ровно 4 цифры, с минусом от 4 до 10, с плюсом от 5 до 10.
+     *
+     * @return индекс после последней цифры года или -1
+     */
+    private static int yearEnd(CharSequence text, int length) {
+        if (length == 0) {
+            return -1;
+        }
+        char first = text.charAt(0);
+        int from = first == '+' || first == '-' ? 1 : 0;
+        int end = from;
+        while (end < length && end - from <= 10 && text.charAt(end) >= '0' && text.charAt(end) <= '9') {
+            end++;
+        }
+        int count = end - from;
+        if (from == 0 ? count != 4 : count < (first == '+' ? 5 : 4) || count > 10) {
+            return -1;
+        }
+        return end;
+    }
+
+    /**
+     * @return год; для минус нуля — значение вне диапазона, такой год ISO_LOCAL_DATE_TIME не принимает
+     */
+    private static long signedYear(CharSequence text, int end) {
+        char first = text.charAt(0);
+        if (first != '+' && first != '-') {
+            return digits(text, 0, end);
+        }
+        long value = 0;
+        for (int i = 1; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        if (first == '+') {
+            return value;
+        }
+        return value != 0 ? -value : Long.MIN_VALUE;
+    }
+
+    /**
+     * @return число из count цифр, начиная с from, или -1, если среди них есть не цифра
+     */
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
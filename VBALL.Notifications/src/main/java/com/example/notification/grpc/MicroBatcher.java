@@ -0,0 +1,176 @@
+package com.example.notification.grpc;
+
+import com.example.notification.dto.IncomingNotification;
+import com.example.notification.service.NotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Буфер одного потока SendNotifications: копит уведомления и отдаёт их на сохранение пачкой,
+ * когда набралось batchSize или с первого уведомления в буфере прошло maxDelay.
+ * Пачки сохраняются в storeExecutor строго по очереди, поэтому id выдаются
+ * в порядке получения, а поток приёма не ждёт хранилище. Результат каждой пачки
+ * сообщается {@link BatchListener} в том же порядке.
+ */
+final class MicroBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MicroBatcher.class);
+
+    private final NotificationService notificationService;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final ScheduledExecutorService scheduler;
+    private final Executor storeExecutor;
+    private final BatchListener listener;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger stored = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private List<IncomingNotification> pending;
+    private long[] pendingSequences;
+    private ScheduledFuture<?> deadline;
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+    MicroBatcher(NotificationService notificationService, int batchSize, Duration maxDelay,
+                 ScheduledExecutorService scheduler, Executor storeExecutor, BatchListener listener) {
+        this.notificationService = notificationService;
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.scheduler = scheduler;
+        this.storeExecutor = storeExecutor;
+        this.listener = listener;
+        this.pending = new ArrayList<>(batchSize);
+        this.pendingSequences = new long[batchSize];
+    }
+
+    /**
+     * @param sequence номер уведомления в потоке, возвращается в {@link BatchListener}
+     */
+    void add(long sequence, IncomingNotification notification) {
+        lock.lock();
+        try {
+            pendingSequences[pending.size()] = sequence;
+            pending.add(notification);
+            if (pending.size() >= batchSize) {
+                dispatchPending();
+            } else if (deadline == null) {
+                deadline = scheduler.schedule(this::flush, maxDelay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Отдаёт на сохранение всё, что накопилось.
+     */
+    void flush() {
+        lock.lock();
+        try {
+            dispatchPending();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Отдаёт на сохранение всё, что накопилось.
+     *
+     * @return завершается, когда сохранены все пачки, отданные до этого вызова
+     */
+    CompletableFuture<Void> drain() {
+        lock.lock();
+        try {
+            dispatchPending();
+            return tail;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stored() {
+        return stored.get();
+    }
+
+    int failed() {
+        return failed.get();
+    }
+
+    private void dispatchPending() {
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<IncomingNotification> batch = pending;
+        long[] sequences = pendingSequences;
+        pending = new ArrayList<>(batchSize);
+        pendingSequences = new long[batchSize];
+        tail = tail.thenRunAsync(() -> store(batch, sequences), storeExecutor);
+    }
+
+    private void store(List<IncomingNotification> batch, long[] sequences) {
+        long[] ids = null;
+        RuntimeException error = null;
+        try {
+            ids = notificationService.createNotificationsFromGrpc(batch);
+            int rejected = rejected(ids);
+            stored.addAndGet(ids.length - rejected);
+            failed.addAndGet(rejected);
+            logger.debug("Stored batch of {} streamed notifications", batch.size());
+        } catch (RuntimeException e) {
+            logger.error("Error storing batch of {} streamed notifications", batch.size(), e);
+            failed.addAndGet(batch.size());
+            error = e;
+        }
+        try {
+            listener.onBatchDone(batch.size(), sequences, ids, error);
+        } catch (RuntimeException e) {
+            // иначе цепочка tail завершится с ошибкой и следующие пачки не сохранятся
+            logger.error("Error reporting batch of {} streamed notifications", batch.size(), e);
+        }
+    }
+
+    /**
+     * @return сколько уведомлений пачки отклонено по отдельности ({@link NotificationService#rejectionReason})
+     */
+    static int rejected(long[] ids) {
+        int rejected = 0;
+        for (long id : ids) {
+            if (NotificationService.rejectionReason(id) != null) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Получатель результатов пачек одного потока. Вызывается из storeExecutor,
+     * по одному вызову за раз.
+     */
+    interface BatchListener {
+
+        /**
+         * @param size      размер пачки; в sequences и ids значимы первые size элементов
+         * @param sequences номера уведомлений, переданные в {@link #add(long, IncomingNotification)}
+         * @param ids       id сохранённых уведомлений или null, если пачка не сохранилась;
+         *                  отклонённое по отдельности уведомление получает отрицательный id,
+         *                  см. {@link NotificationService#rejectionReason}
+         * @param error     причина, если пачка не сохранилась
+         */
+        void onBatchDone(int size, long[] sequences, long[] ids, RuntimeException error);
+    }
+}
@@ -1,15 +1,38 @@
 package com.example.notification.grpc;
 
+import com.example.notification.config.GrpcIngestProperties;
+import com.example.notification.config.IngestLogProperties;
+import com.example.notification.dto.IncomingNotification;
+import com.example.notification.dto.NotificationPage;
+import com.example.notification.exception.InvalidRequestException;
+import com.example.notification.feed.FeedSink;
+import com.example.notification.feed.FeedSubscription;
+import com.example.notification.repository.StoredNotification;
 import com.example.notification.service.NotificationService;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * gRPC сервис для приема уведомлений и сохранения их в хранилище.
@@ -19,11 +42,67 @@ public class NotificationGrpcServiceImpl extends NotificationGrpcServiceGrpc.Not
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationGrpcServiceImpl.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int DEFAULT_PAGE_SIZE = 100;
     
     private final NotificationService notificationService;
+    private final GrpcIngestProperties ingestProperties;
+    private final ScheduledExecutorService batchScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("grpc-ingest-batch").daemon().factory());
+    private final ExecutorService storeExecutor;
+    private final AtomicLong inFlight = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Counter dateParseFailures;
+    private final IngestLog ingestLog;
 
-    public NotificationGrpcServiceImpl(NotificationService notificationService) {
+    public NotificationGrpcServiceImpl(NotificationService notificationService,
+                                       GrpcIngestProperties ingestProperties) {
+        this(notificationService, ingestProperties, new IngestLogProperties(null, 0, null), new SimpleMeterRegistry());
+    }
+
+    public NotificationGrpcServiceImpl(NotificationService notificationService,
+                                       GrpcIngestProperties ingestProperties,
+                                       IngestLogProperties logProperties,
+                                       MeterRegistry meterRegistry) {
+        this(notificationService, ingestProperties, logProperties, meterRegistry, false);
+    }
+
+    /**
+     * Длительность и число вызовов по методам и статусам gRPC пишет сам grpc-spring
+     * (grpc.server.*); здесь регистрируются метрики, которых он не знает.
+     */
+    @Autowired
+    public NotificationGrpcServiceImpl(NotificationService notificationService,
+                                       GrpcIngestProperties ingestProperties,
+                                       IngestLogProperties logProperties,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.notificationService = notificationService;
+        this.ingestProperties = ingestProperties;
+        // У каждого потока приёма в очереди не больше одной пачки, так что очередь
+        // ограничена числом потоков, а число занятых потоков — storeThreads
+        this.storeExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-ingest-store-", 0).factory())
+                : Executors.newFixedThreadPool(ingestProperties.storeThreads(),
+                        Thread.ofPlatform().name("grpc-ingest-store-", 0).daemon().factory());
+        this.ingestLog = new IngestLog(logProperties);
+        long summaryMillis = logProperties.summaryInterval().toMillis();
+        batchScheduler.scheduleAtFixedRate(ingestLog::logSummary, summaryMillis, summaryMillis, TimeUnit.MILLISECONDS);
+        this.batchSizes = DistributionSummary.builder("notification.grpc.ingest.batch.size")
+                .description("Notifications per stored batch of SendNotifications and StreamNotifications")
+                .baseUnit("notifications")
+                .publishPercentileHistogram()
+                .maximumExpectedValue((double) ingestProperties.batchSize())
+                .register(meterRegistry);
+        this.dateParseFailures = Counter.builder("notification.grpc.date.parse.failures")
+                .description("Notification dates that could not be parsed and were replaced with the current time")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchScheduler.shutdownNow();
+        ingestLog.logSummary();
+        storeExecutor.shutdown();
     }
 
     /**
@@ -31,15 +110,10 @@ public class NotificationGrpcServiceImpl extends NotificationGrpcServiceGrpc.Not
      */
     @Override
     public void sendNotification(NotificationRequest request, StreamObserver<NotificationResponse> responseObserver) {
-        logger.info("Received gRPC notification request: date={}, level={}, content={}", 
-                request.getDate(), request.getLevel(), request.getContent());
+        ingestLog.received(request);
 
         try {
-            var stored = notificationService.createNotificationFromGrpc(
-                    request.getLevel(),
-                    request.getContent(),
-                    parseDate(request.getDate())
-            );
+            var stored = notificationService.createNotificationFromGrpc(toIncoming(request));
 
             NotificationResponse response = NotificationResponse.newBuilder()
                     .setSuccess(true)
@@ -49,10 +123,9 @@ public class NotificationGrpcServiceImpl extends NotificationGrpcServiceGrpc.Not
 
             responseObserver.onNext(response);
             responseObserver.onCompleted();
-            
-            logger.info("Notification stored successfully with ID: {}", stored.getId());
-            
+            ingestLog.stored(stored.getId());
         } catch (Exception e) {
+            ingestLog.failed(1);
             logger.error("Error processing notification", e);
             
             NotificationResponse response = NotificationResponse.newBuilder()
@@ -67,75 +140,278 @@ public class NotificationGrpcServiceImpl extends NotificationGrpcServiceGrpc.Not
     }
 
     /**
-     * Принимает поток уведомлений и сохраняет их.
+     * Принимает поток уведомлений и сохраняет их пачками (см. {@link MicroBatcher}).
+     * Сообщения запрашиваются у клиента вручную: не больше window принятых, но ещё
+     * не сохранённых на поток, следующие — по мере сохранения пачек.
      * Возвращает общий результат после обработки всех уведомлений.
      */
     @Override
     public StreamObserver<NotificationRequest> sendNotifications(StreamObserver<NotificationResponse> responseObserver) {
+        var window = new InboundWindow((ServerCallStreamObserver<NotificationResponse>) responseObserver,
+                ingestProperties.window(), inFlight);
+        MicroBatcher batcher = newBatcher((size, sequences, ids, error) -> window.released(size));
+
         return new StreamObserver<NotificationRequest>() {
-            private final AtomicInteger successCount = new AtomicInteger(0);
-            private final AtomicInteger failCount = new AtomicInteger(0);
+            private long received;
 
             @Override
             public void onNext(NotificationRequest request) {
-                logger.info("Received streaming notification: date={}, level={}, content={}", 
-                        request.getDate(), request.getLevel(), request.getContent());
-
-                try {
-                    notificationService.createNotificationFromGrpc(
-                            request.getLevel(),
-                            request.getContent(),
-                            parseDate(request.getDate())
-                    );
-                    successCount.incrementAndGet();
-                } catch (Exception e) {
-                    logger.error("Error processing streaming notification", e);
-                    failCount.incrementAndGet();
-                }
+                ingestLog.received(request);
+                window.received();
+                batcher.add(received++, toIncoming(request));
             }
 
             @Override
             public void onError(Throwable t) {
                 logger.error("Error in notification stream", t);
-                
-                NotificationResponse response = NotificationResponse.newBuilder()
-                        .setSuccess(false)
-                        .setMessage("Stream error: " + t.getMessage())
-                        .setNotificationId("")
-                        .build();
-
-                responseObserver.onNext(response);
-                responseObserver.onCompleted();
+                window.finish();
+                // уже принятое сохраняется, как и при поштучной обработке
+                batcher.drain().whenComplete((ignored, e) -> {
+                    NotificationResponse response = NotificationResponse.newBuilder()
+                            .setSuccess(false)
+                            .setMessage("Stream error: " + t.getMessage())
+                            .setNotificationId("")
+                            .build();
+
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                });
             }
 
             @Override
             public void onCompleted() {
-                int total = successCount.get() + failCount.get();
-                boolean allSuccess = failCount.get() == 0;
-                
-                String message = String.format("Processed %d notifications: %d success, %d failed",
-                        total, successCount.get(), failCount.get());
-
-                NotificationResponse response = NotificationResponse.newBuilder()
-                        .setSuccess(allSuccess)
-                        .setMessage(message)
-                        .setNotificationId(UUID.randomUUID().toString())
-                        .build();
-
-                responseObserver.onNext(response);
-                responseObserver.onCompleted();
-                
-                logger.info("Completed processing notification stream: {}", message);
+                window.finish();
+                batcher.drain().whenComplete((ignored, e) -> {
+                    int stored = batcher.stored();
+                    int failed = batcher.failed();
+
+                    String message = String.format("Processed %d notifications: %d success, %d failed",
+                            stored + failed, stored, failed);
+
+                    NotificationResponse response = NotificationResponse.newBuilder()
+                            .setSuccess(e == null && failed == 0)
+                            .setMessage(message)
+                            .setNotificationId(UUID.randomUUID().toString())
+                            .build();
+
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+
+                    logger.info("Completed processing notification stream: {}", message);
+                });
             }
         };
     }
 
-    private LocalDateTime parseDate(String date) {
+    /**
+     * Принимает поток уведомлений с номерами, назначенными клиентом, и на каждую
+     * сохранённую пачку отвечает подтверждением с id сохранённых уведомлений
+     * и номерами несохранённых. Клиент может не ждать подтверждений и повторить
+     * только то, что попало в failed. Управление потоком — как у SendNotifications.
+     */
+    @Override
+    public StreamObserver<SequencedNotification> streamNotifications(StreamObserver<NotificationAck> responseObserver) {
+        var call = (ServerCallStreamObserver<NotificationAck>) responseObserver;
+        var window = new InboundWindow(call, ingestProperties.window(), inFlight);
+        // после отмены подтверждать некому, а onNext в отменённый вызов бросает исключение
+        AtomicBoolean cancelled = new AtomicBoolean();
+        call.setOnCancelHandler(() -> cancelled.set(true));
+        MicroBatcher batcher = newBatcher((size, sequences, ids, error) -> {
+            window.released(size);
+            if (!cancelled.get()) {
+                responseObserver.onNext(toAck(size, sequences, ids, error));
+            }
+        });
+
+        return new StreamObserver<SequencedNotification>() {
+
+            @Override
+            public void onNext(SequencedNotification request) {
+                ingestLog.received(request.getNotification());
+                window.received();
+                batcher.add(request.getSequence(), toIncoming(request.getNotification()));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // клиент ушёл, подтверждать некому; принятое всё равно сохраняется
+                logger.warn("Notification ack stream cancelled: {}", t.getMessage());
+                window.finish();
+                batcher.drain();
+            }
+
+            @Override
+            public void onCompleted() {
+                window.finish();
+                batcher.drain().whenComplete((ignored, e) -> {
+                    if (!cancelled.get()) {
+                        responseObserver.onCompleted();
+                    }
+                    logger.info("Completed notification ack stream: {} stored, {} failed",
+                            batcher.stored(), batcher.failed());
+                });
+            }
+        };
+    }
+
+    /**
+     * @return сколько принятых потоковых уведомлений ещё не сохранено, по всем потокам
+     */
+    public long inFlightMessages() {
+        return inFlight.get();
+    }
+
+    public int ingestWindow() {
+        return ingestProperties.window();
+    }
+
+    /**
+     * Отдаёт страницу сохранённых уведомлений. Фильтр по уровням без получателя
+     * читается из индекса по типу и не обходит уведомления других уровней.
+     */
+    @Override
+    public void listNotifications(ListNotificationsRequest request,
+                                  StreamObserver<ListNotificationsResponse> responseObserver) {
+        NotificationPage page;
         try {
-            return LocalDateTime.parse(date, DATE_FORMATTER);
-        } catch (Exception e) {
-            logger.warn("Could not parse date '{}', using current time", date);
+            Set<String> levels = request.getLevelsCount() > 0 ? Set.copyOf(request.getLevelsList()) : null;
+            LocalDateTime from = parseBound(request.getFrom());
+            LocalDateTime to = parseBound(request.getTo());
+            int pageSize = request.getPageSize() > 0 ? request.getPageSize() : DEFAULT_PAGE_SIZE;
+            page = request.getUserId().isBlank()
+                    ? notificationService.getNotificationsPage(from, to, levels, request.getPageToken(), pageSize)
+                    : notificationService.getUserNotificationsPage(
+                            request.getUserId(), from, to, levels, request.getPageToken(), pageSize);
+        } catch (InvalidRequestException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        }
+
+        ListNotificationsResponse.Builder response = ListNotificationsResponse.newBuilder();
+        for (var notification : page.items()) {
+            response.addNotifications(toItem(notification));
+        }
+        if (page.nextCursor() != null) {
+            response.setNextPageToken(page.nextCursor());
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Отдаёт уведомления, сохранённые после подписки, пока клиент не отменит вызов.
+     * Пока клиент не читает (исходящий поток не готов), уведомления копятся только
+     * в общей ленте; отставший сильнее её ёмкости получает событие missed с числом пропущенных.
+     */
+    @Override
+    public void subscribe(SubscribeRequest request, StreamObserver<FeedEvent> responseObserver) {
+        var call = (ServerCallStreamObserver<FeedEvent>) responseObserver;
+        Set<String> levels = request.getLevelsCount() > 0 ? Set.copyOf(request.getLevelsList()) : null;
+        FeedSubscription subscription = notificationService.subscribe(request.getUserId(), levels, new FeedSink<>() {
+            @Override
+            public boolean offer(com.example.notification.dto.NotificationResponse notification) {
+                if (!call.isReady()) {
+                    return false;
+                }
+                call.onNext(FeedEvent.newBuilder().setNotification(toItem(notification)).build());
+                return true;
+            }
+
+            @Override
+            public void lagged(long missed) {
+                call.onNext(FeedEvent.newBuilder().setMissed(missed).build());
+            }
+
+            @Override
+            public void closed(String reason) {
+                call.onError(Status.UNAVAILABLE.withDescription(reason).asRuntimeException());
+            }
+        });
+        call.setOnReadyHandler(subscription::resume);
+        call.setOnCancelHandler(subscription::cancel);
+    }
+
+    private static NotificationItem toItem(com.example.notification.dto.NotificationResponse notification) {
+        return NotificationItem.newBuilder()
+                .setId(notification.getId())
+                .setUserId(nullToEmpty(notification.getUserId()))
+                .setDate(notification.getCreatedAt().format(DATE_FORMATTER))
+                .setDateMillis(StoredNotification.toMillis(notification.getCreatedAt()))
+                .setLevel(nullToEmpty(notification.getType()))
+                .setTitle(nullToEmpty(notification.getTitle()))
+                .setContent(nullToEmpty(notification.getMessage()))
+                .build();
+    }
+
+    private MicroBatcher newBatcher(MicroBatcher.BatchListener listener) {
+        return new MicroBatcher(notificationService, ingestProperties.batchSize(), ingestProperties.maxBatchDelay(),
+                batchScheduler, storeExecutor, (size, sequences, ids, error) -> {
+                    batchSizes.record(size);
+                    if (ids == null) {
+                        ingestLog.failed(size);
+                    } else {
+                        int rejected = MicroBatcher.rejected(ids);
+                        if (rejected > 0) {
+                            ingestLog.failed(rejected);
+                        }
+                    }
+                    listener.onBatchDone(size, sequences, ids, error);
+                });
+    }
+
+    private IncomingNotification toIncoming(NotificationRequest request) {
+        return new IncomingNotification(
+                request.getUserId(),
+                request.getLevel(),
+                request.getContent(),
+                createdAt(request),
+                request.getIdempotencyKey());
+    }
+
+    private static NotificationAck toAck(int size, long[] sequences, long[] ids, RuntimeException error) {
+        NotificationAck.Builder ack = NotificationAck.newBuilder().setAckedThrough(sequences[size - 1]);
+        for (int i = 0; i < size; i++) {
+            String rejected = ids != null ? NotificationService.rejectionReason(ids[i]) : null;
+            if (rejected != null) {
+                ack.addFailed(FailedAck.newBuilder().setSequence(sequences[i]).setError(rejected));
+            } else if (ids != null) {
+                ack.addStored(StoredAck.newBuilder().setSequence(sequences[i]).setNotificationId(ids[i]));
+            } else {
+                ack.addFailed(FailedAck.newBuilder().setSequence(sequences[i]).setError(
+                        nullToEmpty(error.getMessage())));
+            }
+        }
+        return ack.build();
+    }
+
+    private static LocalDateTime parseBound(String date) {
+        if (date.isEmpty()) {
+            return null;
+        }
+        LocalDateTime bound = IsoLocalDateTime.parse(date);
+        if (bound == null) {
+            throw new InvalidRequestException("Invalid date: " + date);
+        }
+        return bound;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * date_millis, если задана, иначе разобранная date; неразборчивая дата заменяется текущим временем.
+     */
+    private LocalDateTime createdAt(NotificationRequest request) {
+        if (request.getDateMillis() != 0) {
+            return StoredNotification.fromMillis(request.getDateMillis());
+        }
+        LocalDateTime date = IsoLocalDateTime.parse(request.getDate());
+        if (date == null) {
+            dateParseFailures.increment();
+            ingestLog.dateFallback(request.getDate());
             return LocalDateTime.now();
         }
+        return date;
     }
 }
@@ -0,0 +1,23 @@
+package com.example.notification.persistence;
+
+/**
+ * Когда запись журнала считается устойчивой.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * fsync после каждой записи; запрос возвращается только после сброса на диск.
+     */
+    PER_WRITE,
+
+    /**
+     * Групповой commit: фоновый поток делает fsync раз в интервал,
+     * писатели ждут ближайшего сброса, покрывающего их запись.
+     */
+    GROUP,
+
+    /**
+     * Сброс на диск остаётся на усмотрение ОС; при падении машины возможна потеря хвоста.
+     */
+    OS
+}
@@ -0,0 +1,159 @@
+package com.example.notification.persistence;
+
+import com.example.notification.model.Notification;
+import com.example.notification.repository.StoredNotification;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Растущий буфер для бинарной записи уведомлений и чтение их обратно.
+ * Формат уведомления: id, createdAt (секунды UTC + наносекунды), затем
+ * userId, type, title, message как UTF-8 с длиной (-1 для null).
+ */
+final class RecordBuffer {
+
+    private static final int NULL_LENGTH = -1;
+
+    private ByteBuffer buffer;
+
+    RecordBuffer(int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    RecordBuffer clear() {
+        buffer.clear();
+        return this;
+    }
+
+    /**
+     * Буфер, готовый к чтению записанных данных.
+     */
+    ByteBuffer flip() {
+        return buffer.flip();
+    }
+
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Участок уже записанных данных без копирования; позиция буфера не меняется.
+     */
+    ByteBuffer view(int index, int length) {
+        return buffer.slice(index, length);
+    }
+
+    RecordBuffer putByte(byte value) {
+        ensureCapacity(Byte.BYTES);
+        buffer.put(value);
+        return this;
+    }
+
+    RecordBuffer putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        buffer.putInt(value);
+        return this;
+    }
+
+    RecordBuffer putIntAt(int index, int value) {
+        buffer.putInt(index, value);
+        return this;
+    }
+
+    RecordBuffer putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        buffer.putLong(value);
+        return this;
+    }
+
+    RecordBuffer putString(String value) {
+        if (value == null) {
+            return putInt(NULL_LENGTH);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    RecordBuffer putNotification(Notification notification) {
+        LocalDateTime createdAt = notification.getCreatedAt();
+        putLong(notification.getId());
+        putLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+        putInt(createdAt.getNano());
+        putString(notification.getUserId());
+        putString(notification.getType());
+        putString(notification.getTitle());
+        putString(notification.getMessage());
+        return this;
+    }
+
+    /**
+     * Пишет компактную запись хранилища в том же формате, что и {@link #putNotification};
+     * текст копируется из арены без декодирования.
+     */
+    RecordBuffer putNotification(StoredNotification notification) {
+        long createdAtMillis = notification.getCreatedAtMillis();
+        putLong(notification.getId());
+        putLong(Math.floorDiv(createdAtMillis, 1000));
+        putInt((int) Math.floorMod(createdAtMillis, 1000) * 1_000_000);
+        putString(notification.getUserId());
+        putString(notification.getType());
+        putString(notification.getTitle());
+        int length = notification.messageLength();
+        putInt(length);
+        if (length > 0) {
+            ensureCapacity(length);
+            notification.copyMessageTo(buffer);
+        }
+        return this;
+    }
+
+    static Notification readNotification(ByteBuffer source) {
+        long id = source.getLong();
+        long epochSecond = source.getLong();
+        int nano = source.getInt();
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setCreatedAt(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+        notification.setUserId(readString(source));
+        notification.setType(readString(source));
+        notification.setTitle(readString(source));
+        notification.setMessage(readString(source));
+        return notification;
+    }
+
+    static String readString(ByteBuffer source) {
+        int length = source.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > source.remaining()) {
+            throw new IllegalStateException("Corrupt string length: " + length);
+        }
+        if (source.hasArray()) {
+            String value = new String(source.array(), source.arrayOffset() + source.position(), length,
+                    StandardCharsets.UTF_8);
+            source.position(source.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (buffer.remaining() >= extra) {
+            return;
+        }
+        int required = buffer.position() + extra;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(required, buffer.capacity() * 2));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.notification.persistence;
+
+import com.example.notification.repository.NotificationJournal;
+import com.example.notification.repository.StoredNotification;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Снимок содержимого хранилища на момент номера записи журнала.
+ * <p>
+ * Формат: заголовок (magic, версия, номер последней покрытой записи журнала,
+ * следующий свободный id), затем записи уведомлений в порядке createdAt
+ * (длина + данные в формате {@link RecordBuffer}), затем хвост
+ * (число записей, CRC32C всего предыдущего, конечный magic).
+ * Файл пишется во временный и атомарно переименовывается, поэтому
+ * существующий снимок всегда полный. Чтение идёт через memory-mapping окнами.
+ */
+public final class SnapshotFile {
+
+    static final String SUFFIX = ".snap";
+    private static final String PREFIX = "snapshot-";
+    private static final int MAGIC = 0x564E5331;
+    private static final int END_MAGIC = 0x31534E56;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES * 2;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES * 2;
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    /**
+     * Заголовок загруженного снимка.
+     */
+    public record Header(long coveredLsn, long nextId, long count) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Пишет снимок и возвращает путь к нему, когда и файл, и его имя в каталоге уже на диске.
+     * Содержимое может меняться во время записи: изменения после coveredLsn при восстановлении
+     * всё равно будут применены из журнала.
+     */
+    public static Path write(Path directory, long coveredLsn, long nextId, Iterable<StoredNotification> notifications)
+            throws IOException {
+        Path target = directory.resolve(fileName(coveredLsn));
+        Path temp = directory.resolve(fileName(coveredLsn) + ".tmp");
+        CRC32C checksum = new CRC32C();
+        RecordBuffer buffer = new RecordBuffer(64 * 1024);
+        long count = 0;
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(coveredLsn).putLong(nextId);
+            for (StoredNotification notification : notifications) {
+                int start = buffer.position();
+                buffer.putInt(0).putNotification(notification);
+                buffer.putIntAt(start, buffer.position() - start - Integer.BYTES);
+                count++;
+                if (buffer.position() >= 48 * 1024) {
+                    writeOut(channel, buffer, checksum);
+                }
+            }
+            writeOut(channel, buffer, checksum);
+            buffer.putLong(count).putInt((int) checksum.getValue()).putInt(END_MAGIC);
+            ByteBuffer trailer = buffer.flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            buffer.clear();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // переименование должно дойти до диска раньше, чем журнал, покрытый снимком, будет удалён
+        WriteAheadLog.syncDirectory(directory);
+        return target;
+    }
+
+    /**
+     * Загружает снимок, передавая уведомления получателю в порядке createdAt.
+     *
+     * @throws IllegalStateException если файл повреждён
+     */
+    public static Header load(Path file, NotificationJournal.Replayer replayer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw new IllegalStateException("Snapshot " + file + " is truncated");
+            }
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_BYTES, TRAILER_BYTES);
+            long expectedCount = trailer.getLong();
+            int expectedChecksum = trailer.getInt();
+            if (trailer.getInt() != END_MAGIC) {
+                throw new IllegalStateException("Snapshot " + file + " has no trailer");
+            }
+
+            long dataEnd = size - TRAILER_BYTES;
+            CRC32C checksum = new CRC32C();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            checksum.update(header.duplicate());
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IllegalStateException("Snapshot " + file + " has unknown format");
+            }
+            long coveredLsn = header.getLong();
+            long nextId = header.getLong();
+
+            long count = 0;
+            long offset = HEADER_BYTES;
+            while (offset < dataEnd) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(MAP_WINDOW, dataEnd - offset));
+                int consumed = 0;
+                while (window.remaining() >= Integer.BYTES) {
+                    int length = window.getInt(window.position());
+                    if (length <= 0 || Integer.BYTES + length > window.remaining()) {
+                        break;
+                    }
+                    checksum.update(window.slice(window.position(), Integer.BYTES + length));
+                    window.position(window.position() + Integer.BYTES);
+                    ByteBuffer record = window.slice(window.position(), length);
+                    replayer.put(RecordBuffer.readNotification(record));
+                    window.position(window.position() + length);
+                    consumed += Integer.BYTES + length;
+                    count++;
+                }
+                if (consumed == 0) {
+                    throw new IllegalStateException("Snapshot " + file + " is corrupt at offset " + offset);
+                }
+                offset += consumed;
+            }
+
+            if (count != expectedCount || (int) checksum.getValue() != expectedChecksum) {
+                throw new IllegalStateException("Snapshot " + file + " failed verification");
+            }
+            return new Header(coveredLsn, nextId, count);
+        }
+    }
+
+    /**
+     * Самый свежий снимок в каталоге.
+     */
+    public static Optional<Path> latest(Path directory) throws IOException {
+        List<Path> snapshots = list(directory);
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * Удаляет снимки старее keep и оставшиеся от прерванной записи временные файлы.
+     */
+    public static void deleteOlderThan(Path directory, Path keep) throws IOException {
+        long keepLsn = coveredLsn(keep);
+        for (Path snapshot : list(directory)) {
+            if (coveredLsn(snapshot) < keepLsn) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path temp : files.filter(p -> p.getFileName().toString().endsWith(SUFFIX + ".tmp")).toList()) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static void writeOut(FileChannel channel, RecordBuffer buffer, CRC32C checksum) throws IOException {
+        ByteBuffer data = buffer.flip();
+        checksum.update(data.duplicate());
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        buffer.clear();
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted((a, b) -> Long.compare(coveredLsn(a), coveredLsn(b)))
+                    .toList();
+        }
+    }
+
+    private static String fileName(long coveredLsn) {
+        return String.format("%s%020d%s", PREFIX, coveredLsn, SUFFIX);
+    }
+
+    private static long coveredLsn(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,517 @@
+package com.example.notification.persistence;
+
+import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Сегментированный append-only журнал изменений хранилища на локальном диске.
+ * <p>
+ * Запись: длина тела (int), CRC32C тела (int), тело — код операции (byte),
+ * порядковый номер записи (long) и данные уведомления либо id для удаления.
+ * Сегмент называется по номеру своей первой записи и закрывается,
+ * когда его размер превышает заданный.
+ * <p>
+ * При старте {@link #replay(Replayer)} загружает последний снимок ({@link SnapshotFile}),
+ * затем читает сегменты по порядку, пропуская записи, покрытые снимком. Оборванную
+ * запись в хвосте последнего сегмента (падение посреди записи) отрезает.
+ * Повреждение в середине журнала останавливает старт, чтобы не потерять данные молча.
+ * Запись в журнал возможна только после replay.
+ */
+public final class WriteAheadLog implements NotificationJournal, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    static final String SEGMENT_SUFFIX = ".wal";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_UPDATE = 2;
+    private static final byte OP_DELETE = 3;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long segmentBytes;
+    private final Duration groupCommitInterval;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final RecordBuffer buffer = new RecordBuffer(4096);
+    private final CRC32C checksum = new CRC32C();
+    private FileChannel segment;
+    private Path segmentPath;
+    private long segmentSize;
+    private long nextLsn = 1;
+    /** Позиции записей, уже добавленных в журнал, но ещё не применённых к хранилищу. */
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private final ReentrantLock appliedLock = new ReentrantLock();
+    private final Condition appliedAdvanced = appliedLock.newCondition();
+    private final AtomicInteger checkpointWaiters = new AtomicInteger();
+
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    private volatile long durableLsn;
+    private volatile boolean closed;
+    private Thread flusher;
+
+    public WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, long segmentBytes, Duration groupCommitInterval) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.segmentBytes = segmentBytes;
+        this.groupCommitInterval = groupCommitInterval;
+    }
+
+    @Override
+    public long appendSave(Notification notification) {
+        return append(OP_SAVE, notification, 0);
+    }
+
+    @Override
+    public long appendSaveAll(List<Notification> notifications) {
+        return appendRecords(OP_SAVE, notifications, null);
+    }
+
+    @Override
+    public long appendUpdate(Notification notification) {
+        return append(OP_UPDATE, notification, 0);
+    }
+
+    @Override
+    public long appendDelete(long id) {
+        return append(OP_DELETE, null, id);
+    }
+
+    @Override
+    public long appendDeleteAll(long[] ids) {
+        return appendRecords(OP_DELETE, null, ids);
+    }
+
+    @Override
+    public void complete(long position) {
+        inFlight.remove(position);
+        if (checkpointWaiters.get() > 0) {
+            appliedLock.lock();
+            try {
+                appliedAdvanced.signalAll();
+            } finally {
+                appliedLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        if (fsyncPolicy != FsyncPolicy.GROUP || durableLsn >= position) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableLsn < position && !closed) {
+                durableAdvanced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for group commit", e);
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(Replayer replayer) throws IOException {
+        writeLock.lock();
+        try {
+            if (segment != null) {
+                throw new IllegalStateException("Write-ahead log has already been replayed");
+            }
+            Files.createDirectories(directory);
+            long coveredLsn = 0;
+            Optional<Path> snapshot = SnapshotFile.latest(directory);
+            if (snapshot.isPresent()) {
+                SnapshotFile.Header header = SnapshotFile.load(snapshot.get(), replayer);
+                replayer.reserveIds(header.nextId());
+                coveredLsn = header.coveredLsn();
+                logger.info("Loaded {} notifications from snapshot {}", header.count(), snapshot.get());
+            }
+            List<Path> segments = listSegments();
+            long lastLsn = coveredLsn;
+            for (int i = 0; i < segments.size(); i++) {
+                Path path = segments.get(i);
+                lastLsn = Math.max(lastLsn, firstLsn(path) - 1);
+                lastLsn = replaySegment(path, i == segments.size() - 1, replayer, coveredLsn, lastLsn);
+            }
+            nextLsn = lastLsn + 1;
+            durableLsn = lastLsn;
+            openSegment();
+        } finally {
+            writeLock.unlock();
+        }
+        if (fsyncPolicy == FsyncPolicy.GROUP) {
+            startFlusher();
+        }
+    }
+
+    /**
+     * Номер записи, до которого включительно все изменения уже применены к хранилищу.
+     * Берёт последнюю записанную позицию и ждёт, пока будут применены все записи до неё.
+     * Журнал на это время не блокируется: писатель, уже добавивший запись, может ждать
+     * блокировки хранилища, которую держит другой писатель, стоящий в очереди к журналу.
+     */
+    public long checkpointLsn() {
+        long lsn;
+        writeLock.lock();
+        try {
+            lsn = nextLsn - 1;
+        } finally {
+            writeLock.unlock();
+        }
+        checkpointWaiters.incrementAndGet();
+        appliedLock.lock();
+        try {
+            while (!appliedThrough(lsn)) {
+                appliedAdvanced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight writes", e);
+        } finally {
+            appliedLock.unlock();
+            checkpointWaiters.decrementAndGet();
+        }
+        return lsn;
+    }
+
+    private boolean appliedThrough(long lsn) {
+        Long oldest = inFlight.ceiling(Long.MIN_VALUE);
+        return oldest == null || oldest > lsn;
+    }
+
+    /**
+     * Удаляет закрытые сегменты, все записи которых не новее lsn. Вызывать только после того,
+     * как снимок, покрывающий lsn, записан вместе с каталогом ({@link SnapshotFile#write}).
+     *
+     * @return число удалённых сегментов
+     */
+    public int truncateThrough(long lsn) throws IOException {
+        List<Path> segments = listSegments();
+        int deleted = 0;
+        // последний сегмент открыт на запись и никогда не удаляется
+        for (int i = 0; i < segments.size() - 1; i++) {
+            long segmentLastLsn = firstLsn(segments.get(i + 1)) - 1;
+            if (segmentLastLsn > lsn) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i));
+            deleted++;
+        }
+        if (deleted > 0) {
+            syncDirectory(directory);
+        }
+        return deleted;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Номер последней записанной записи.
+     */
+    public long lastLsn() {
+        writeLock.lock();
+        try {
+            return nextLsn - 1;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Останавливает group commit и сбрасывает активный сегмент на диск. Поток group commit
+     * будится, а не прерывается: прерывание посреди {@link FileChannel#force} закрыло бы канал,
+     * и записи, которые уже ждут подтверждения, не попали бы на диск.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeLock.lock();
+        try {
+            if (segment != null) {
+                if (fsyncPolicy != FsyncPolicy.OS) {
+                    forceActiveSegment();
+                }
+                segment.close();
+            }
+            advanceDurable(Long.MAX_VALUE);
+        } finally {
+            writeLock.unlock();
+            // ожидающие подтверждения выходят по closed и при неудачном fsync
+            advanceDurable(0);
+        }
+    }
+
+    /**
+     * Канал сегмента мог закрыться, если писателя прервали посреди записи; тогда файл
+     * сбрасывается через новый канал.
+     */
+    private void forceActiveSegment() throws IOException {
+        if (segment.isOpen()) {
+            segment.force(false);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    private long append(byte op, Notification notification, long id) {
+        return notification != null
+                ? appendRecords(op, List.of(notification), null)
+                : appendRecords(op, null, new long[] {id});
+    }
+
+    /**
+     * Пишет по записи на каждое уведомление (или по записи удаления на каждый id, если notifications == null)
+     * одной операцией записи в сегмент.
+     *
+     * @return номер последней записи
+     */
+    private long appendRecords(byte op, List<Notification> notifications, long[] ids) {
+        writeLock.lock();
+        try {
+            if (segment == null || closed) {
+                throw new IllegalStateException("Write-ahead log is not open");
+            }
+            int count = notifications != null ? notifications.size() : ids.length;
+            buffer.clear();
+            for (int i = 0; i < count; i++) {
+                int start = buffer.position();
+                buffer.putInt(0).putInt(0).putByte(op).putLong(nextLsn + i);
+                if (notifications != null) {
+                    buffer.putNotification(notifications.get(i));
+                } else {
+                    buffer.putLong(ids[i]);
+                }
+                int bodyLength = buffer.position() - start - HEADER_BYTES;
+                checksum.reset();
+                checksum.update(buffer.view(start + HEADER_BYTES, bodyLength));
+                buffer.putIntAt(start, bodyLength).putIntAt(start + Integer.BYTES, (int) checksum.getValue());
+            }
+            ByteBuffer records = buffer.flip();
+            while (records.hasRemaining()) {
+                segment.write(records);
+            }
+            segmentSize += records.limit();
+            nextLsn += count;
+            long lsn = nextLsn - 1;
+
+            if (fsyncPolicy == FsyncPolicy.PER_WRITE) {
+                segment.force(false);
+            }
+            if (segmentSize >= segmentBytes) {
+                rollSegment();
+            }
+            inFlight.add(lsn);
+            return lsn;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to write-ahead log", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long replaySegment(Path path, boolean last, Replayer replayer, long coveredLsn, long lastLsn)
+            throws IOException {
+        long validEnd = 0;
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+            while (validEnd < size) {
+                byte[] body = readRecord(in);
+                if (body == null) {
+                    break;
+                }
+                lastLsn = Math.max(lastLsn, apply(ByteBuffer.wrap(body), replayer, coveredLsn));
+                validEnd += HEADER_BYTES + body.length;
+            }
+        }
+        if (validEnd < size) {
+            if (!last) {
+                throw new IllegalStateException("Corrupt write-ahead log segment " + path + " at offset " + validEnd);
+            }
+            logger.warn("Truncating torn tail of write-ahead log segment {} at offset {} (size {})",
+                    path, validEnd, size);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+        }
+        return lastLsn;
+    }
+
+    /**
+     * @return тело записи или null, если запись оборвана или не сходится контрольная сумма
+     */
+    private byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int expectedChecksum = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                return null;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            checksum.reset();
+            checksum.update(body);
+            return (int) checksum.getValue() == expectedChecksum ? body : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static long apply(ByteBuffer body, Replayer replayer, long coveredLsn) {
+        byte op = body.get();
+        long lsn = body.getLong();
+        if (lsn <= coveredLsn) {
+            return lsn;
+        }
+        switch (op) {
+            case OP_SAVE, OP_UPDATE -> replayer.put(RecordBuffer.readNotification(body));
+            case OP_DELETE -> replayer.delete(body.getLong());
+            default -> throw new IllegalStateException("Unknown write-ahead log operation " + op + " at lsn " + lsn);
+        }
+        return lsn;
+    }
+
+    private void rollSegment() throws IOException {
+        segment.force(false);
+        segment.close();
+        advanceDurable(nextLsn - 1);
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        segmentPath = directory.resolve(segmentName(nextLsn));
+        segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segmentSize = 0;
+        syncDirectory(directory);
+    }
+
+    private void startFlusher() {
+        long intervalNanos = groupCommitInterval.toNanos();
+        flusher = new Thread(() -> {
+            while (!closed) {
+                LockSupport.parkNanos(intervalNanos);
+                try {
+                    flush();
+                } catch (IOException e) {
+                    logger.error("Group commit fsync failed", e);
+                }
+            }
+        }, "wal-group-commit");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void flush() throws IOException {
+        FileChannel channel;
+        long target;
+        writeLock.lock();
+        try {
+            channel = segment;
+            target = nextLsn - 1;
+        } finally {
+            writeLock.unlock();
+        }
+        if (target <= durableLsn) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // сегмент закрыт при ротации или остановке; продвинет durableLsn тот, кто его сбросил
+            return;
+        }
+        advanceDurable(target);
+    }
+
+    private void advanceDurable(long lsn) {
+        durableLock.lock();
+        try {
+            if (lsn > durableLsn) {
+                durableLsn = lsn;
+            }
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Сбрасывает на диск сам каталог: без этого создание, переименование и удаление файлов
+     * в нём могут не пережить падение, даже если содержимое файлов уже на диске.
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // не все платформы позволяют fsync каталога
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList());
+            segments.sort((a, b) -> Long.compare(firstLsn(a), firstLsn(b)));
+            return segments;
+        }
+    }
+
+    static String segmentName(long firstLsn) {
+        return String.format("%020d%s", firstLsn, SEGMENT_SUFFIX);
+    }
+
+    static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
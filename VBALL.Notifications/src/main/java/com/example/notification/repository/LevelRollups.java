@@ -0,0 +1,152 @@
+package com.example.notification.repository;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики уведомлений по уровню (типу) в корзинах по минутам и по часам createdAt.
+ * Хранилище меняет их при каждой индексации и снятии с индекса, так что запросы
+ * по диапазону отвечают суммой корзин, не читая самих уведомлений.
+ * <p>
+ * Корзина — {@link LongAdder}: параллельный приём не соперничает за один счётчик.
+ * Последняя созданная корзина запоминается, и запись в текущую минуту обходится без
+ * поиска по карте корзин. Уведомление учитывается, если его корзина уже есть или
+ * не старше горизонта; снятие с индекса уменьшает корзину, только если она ещё есть,
+ * поэтому удалённые по горизонту корзины не уходят в минус.
+ */
+final class LevelRollups {
+
+    private final ConcurrentMap<String, Map<RollupInterval, TimeBuckets>> byLevel = new ConcurrentHashMap<>();
+
+    void add(String level, long createdAtMillis, long delta) {
+        if (level == null) {
+            return;
+        }
+        Map<RollupInterval, TimeBuckets> series = byLevel.get(level);
+        if (series == null) {
+            if (delta < 0) {
+                return;
+            }
+            series = byLevel.computeIfAbsent(level, name -> newSeries());
+        }
+        for (TimeBuckets buckets : series.values()) {
+            buckets.add(createdAtMillis, delta);
+        }
+    }
+
+    /**
+     * Непустые корзины уровней из types (null или пустое — все уровни), пересекающиеся
+     * с [fromMillis, toMillis).
+     *
+     * @return уровень → начало корзины в миллисекундах → число уведомлений
+     */
+    Map<String, NavigableMap<Long, Long>> query(RollupInterval interval, long fromMillis, long toMillis,
+                                                Set<String> types) {
+        Map<String, NavigableMap<Long, Long>> result = new HashMap<>();
+        byLevel.forEach((level, series) -> {
+            if (types == null || types.isEmpty() || types.contains(level)) {
+                NavigableMap<Long, Long> counts = series.get(interval).query(fromMillis, toMillis);
+                if (!counts.isEmpty()) {
+                    result.put(level, counts);
+                }
+            }
+        });
+        return result;
+    }
+
+    private static Map<RollupInterval, TimeBuckets> newSeries() {
+        Map<RollupInterval, TimeBuckets> series = new EnumMap<>(RollupInterval.class);
+        for (RollupInterval interval : RollupInterval.values()) {
+            series.put(interval, new TimeBuckets(interval));
+        }
+        return series;
+    }
+
+    private static final class TimeBuckets {
+        private final long widthMillis;
+        private final long horizonBuckets;
+        private final ConcurrentSkipListMap<Long, LongAdder> counts = new ConcurrentSkipListMap<>();
+        private volatile Bucket latest;
+        /** Корзины раньше этой не создаются; сдвигается при создании новой корзины. */
+        private volatile long floor = Long.MIN_VALUE;
+
+        private TimeBuckets(RollupInterval interval) {
+            this.widthMillis = interval.widthMillis();
+            this.horizonBuckets = interval.horizonBuckets();
+        }
+
+        void add(long millis, long delta) {
+            long index = Math.floorDiv(millis, widthMillis);
+            Bucket cached = latest;
+            if (cached != null && cached.index == index) {
+                cached.count.add(delta);
+                return;
+            }
+            LongAdder count = counts.get(index);
+            if (count == null) {
+                if (delta < 0 || index < floor) {
+                    return;
+                }
+                count = counts.computeIfAbsent(index, key -> new LongAdder());
+                created(index, count);
+            }
+            count.add(delta);
+        }
+
+        NavigableMap<Long, Long> query(long fromMillis, long toMillis) {
+            NavigableMap<Long, Long> result = new TreeMap<>();
+            long from = Math.floorDiv(fromMillis, widthMillis);
+            long to = Math.floorDiv(toMillis - 1, widthMillis);
+            if (from > to) {
+                return result;
+            }
+            counts.subMap(from, true, to, true).forEach((index, count) -> {
+                long sum = count.sum();
+                if (sum != 0) {
+                    result.put(index * widthMillis, sum);
+                }
+            });
+            return result;
+        }
+
+        /**
+         * Запоминает новую корзину как текущую, если она не в будущем: даты уведомлений из
+         * расписания бывают впереди, и кэш не должен уходить от корзины, куда пишет основной поток.
+         */
+        private void created(long index, LongAdder count) {
+            long now = Math.floorDiv(StoredNotification.toMillis(LocalDateTime.now()), widthMillis);
+            Bucket cached = latest;
+            if (index <= now && (cached == null || index > cached.index)) {
+                latest = new Bucket(index, count);
+            }
+            long newFloor = now - horizonBuckets;
+            if (newFloor > floor) {
+                floor = newFloor;
+                counts.headMap(newFloor).clear();
+            }
+        }
+    }
+
+    /**
+     * Обычный класс, а не record: отчёт о памяти хранилища обходит граф через JOL,
+     * а тот не умеет читать поля записей.
+     */
+    private static final class Bucket {
+        private final long index;
+        private final LongAdder count;
+
+        private Bucket(long index, LongAdder count) {
+            this.index = index;
+            this.count = count;
+        }
+    }
+}
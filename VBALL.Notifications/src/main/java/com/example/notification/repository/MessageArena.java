@@ -0,0 +1,128 @@
+package com.example.notification.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хранилище текстов уведомлений: UTF-8 байты дописываются подряд в большие чанки
+ * (в куче или вне её), так что на уведомление не приходится отдельного массива.
+ * <p>
+ * Чанк не освобождается явно: на него ссылаются уведомления, записанные в него,
+ * и он уходит в GC вместе с последним из них. Вытеснение удаляет самые старые
+ * уведомления, поэтому чанки освобождаются почти целиком и по порядку; отдельные
+ * долгоживущие уведомления удерживают свой чанк до удаления.
+ * <p>
+ * Запись распределяется по полосам со своим текущим чанком и блокировкой,
+ * чтобы параллельный приём не упирался в одну блокировку.
+ */
+public final class MessageArena {
+
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    private final int chunkSize;
+    private final boolean offHeap;
+    private final Stripe[] stripes;
+    private final LongAdder reservedBytes = new LongAdder();
+
+    /**
+     * @param chunkSize размер чанка; текст длиннее чанка получает собственный чанк
+     * @param offHeap   хранить чанки в direct-буферах вне кучи
+     */
+    public MessageArena(int chunkSize, boolean offHeap) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.offHeap = offHeap;
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public static MessageArena onHeap() {
+        return new MessageArena(DEFAULT_CHUNK_SIZE, false);
+    }
+
+    /**
+     * Суммарный объём выделенных чанков, включая уже освобождённые GC.
+     */
+    public long reservedBytes() {
+        return reservedBytes.sum();
+    }
+
+    /**
+     * Копирует bytes в арену и передаёт чанк и смещение записи в placement.
+     */
+    <T> T write(byte[] bytes, Placement<T> placement) {
+        if (bytes.length == 0) {
+            return placement.place(null, 0);
+        }
+        if (bytes.length >= chunkSize) {
+            // длинный текст получает собственный чанк и не обрывает текущий чанк полосы
+            Chunk dedicated = newChunk(bytes.length);
+            dedicated.buffer.put(0, bytes);
+            return placement.place(dedicated, 0);
+        }
+        Stripe stripe = stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        stripe.lock.lock();
+        try {
+            if (stripe.current == null || chunkSize - stripe.position < bytes.length) {
+                stripe.current = newChunk(chunkSize);
+                stripe.position = 0;
+            }
+            int offset = stripe.position;
+            stripe.current.buffer.put(offset, bytes);
+            stripe.position += bytes.length;
+            return placement.place(stripe.current, offset);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Chunk newChunk(int capacity) {
+        reservedBytes.add(capacity);
+        return new Chunk(offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+    }
+
+    @FunctionalInterface
+    interface Placement<T> {
+        T place(Chunk chunk, int offset);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Chunk current;
+        private int position;
+    }
+
+    /**
+     * Чанк арены. После записи участок только читается абсолютными операциями,
+     * которые не трогают позицию буфера и безопасны из нескольких потоков.
+     */
+    static final class Chunk {
+
+        private final ByteBuffer buffer;
+
+        private Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        String decode(int offset, int length) {
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void copyTo(int offset, int length, ByteBuffer target) {
+            target.put(target.position(), buffer, offset, length);
+            target.position(target.position() + length);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.notification.repository;
+
+import com.example.notification.model.Notification;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Журнал изменений хранилища. NotificationStore пишет в него каждое сохранение,
+ * обновление и удаление до того, как изменение станет видно читателям,
+ * и восстанавливает из него содержимое при старте.
+ */
+public interface NotificationJournal {
+
+    /**
+     * Журнал, который ничего не пишет: хранилище остаётся чисто in-memory.
+     */
+    NotificationJournal NONE = new NotificationJournal() {
+        @Override
+        public long appendSave(Notification notification) {
+            return 0;
+        }
+
+        @Override
+        public long appendSaveAll(List<Notification> notifications) {
+            return 0;
+        }
+
+        @Override
+        public long appendUpdate(Notification notification) {
+            return 0;
+        }
+
+        @Override
+        public long appendDelete(long id) {
+            return 0;
+        }
+
+        @Override
+        public long appendDeleteAll(long[] ids) {
+            return 0;
+        }
+
+        @Override
+        public void complete(long position) {
+        }
+
+        @Override
+        public void awaitDurable(long position) {
+        }
+
+        @Override
+        public void replay(Replayer replayer) {
+        }
+    };
+
+    /**
+     * @return позиция записи в журнале для {@link #awaitDurable(long)}
+     */
+    long appendSave(Notification notification);
+
+    /**
+     * Пишет сохранения пачки подряд одной операцией записи. Для пачки вызывается
+     * один {@link #complete(long)} и один {@link #awaitDurable(long)}.
+     *
+     * @return позиция последней записи пачки
+     */
+    long appendSaveAll(List<Notification> notifications);
+
+    long appendUpdate(Notification notification);
+
+    long appendDelete(long id);
+
+    /**
+     * Пишет удаления пачки подряд одной операцией записи, как {@link #appendSaveAll(List)}.
+     *
+     * @return позиция последней записи пачки
+     */
+    long appendDeleteAll(long[] ids);
+
+    /**
+     * Сообщает, что запись с указанной позицией применена к индексам хранилища.
+     * Вызывается ровно один раз на каждый успешный append.
+     */
+    void complete(long position);
+
+    /**
+     * Блокирует поток, пока запись с указанной позицией не станет устойчивой
+     * согласно политике fsync журнала. Вызывается вне блокировок хранилища.
+     */
+    void awaitDurable(long position);
+
+    void replay(Replayer replayer) throws IOException;
+
+    /**
+     * Получатель записей журнала при восстановлении.
+     */
+    interface Replayer {
+
+        void put(Notification notification);
+
+        void delete(long id);
+
+        /**
+         * Id меньше nextId уже выдавались и не должны переиспользоваться.
+         */
+        void reserveIds(long nextId);
+    }
+}
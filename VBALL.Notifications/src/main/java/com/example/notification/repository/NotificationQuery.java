@@ -0,0 +1,31 @@
+package com.example.notification.repository;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Параметры выборки страницы из временного индекса.
+ *
+ * @param userId получатель; null — общий индекс всех уведомлений
+ * @param from   нижняя граница createdAt (включительно), может быть null
+ * @param to     верхняя граница createdAt (исключительно), может быть null
+ * @param types  допустимые типы; null или пустое множество — без фильтра
+ * @param after  позиция, после которой начинается страница, может быть null
+ * @param limit  максимальное число элементов на странице
+ */
+public record NotificationQuery(
+        String userId,
+        LocalDateTime from,
+        LocalDateTime to,
+        Set<String> types,
+        Position after,
+        int limit
+) {
+
+    /**
+     * Позиция во временном индексе: ключ последнего выданного элемента
+     * (createdAt в миллисекундах UTC, как его хранит {@link StoredNotification}).
+     */
+    public record Position(long createdAtMillis, long id) {
+    }
+}
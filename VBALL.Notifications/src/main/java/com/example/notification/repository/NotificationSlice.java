@@ -0,0 +1,9 @@
+package com.example.notification.repository;
+
+import java.util.List;
+
+/**
+ * Страница уведомлений в порядке createdAt и признак наличия следующей.
+ */
+public record NotificationSlice(List<StoredNotification> items, boolean hasMore) {
+}
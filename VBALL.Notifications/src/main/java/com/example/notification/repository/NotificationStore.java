@@ -1,54 +1,780 @@
 package com.example.notification.repository;
 
 import com.example.notification.model.Notification;
-import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 
 /**
  * Потокобезопасное in-memory хранилище уведомлений.
- * Хранит порядок добавления и умеет выдавать срез за период.
+ * Поиск и удаление по id выполняются через первичный индекс за O(1),
+ * а временной индекс (createdAt, id) отдаёт срезы за период уже отсортированными.
+ * Уведомления с получателем дополнительно раскладываются по пользовательским
+ * разделам со своим временным индексом, так что чтение ящика одного пользователя
+ * не затрагивает чужие данные, а запись в разные ящики не конкурирует между собой.
+ * Такой же индекс по типу позволяет выбирать уведомления нужных типов и вытеснять
+ * самые старые уведомления конкретного типа без полного обхода, а инвертированный
+ * индекс по словам ({@link TextIndex}) — искать по тексту.
+ * <p>
+ * Уведомления хранятся в компактном виде ({@link StoredNotification}): входной
+ * {@link Notification} раскладывается при записи, а объекты для ответа API
+ * собираются из компактной записи при чтении. Запись сама служит ключом
+ * временных индексов, поэтому отдельных ключей на уведомление нет.
+ * <p>
+ * Все изменения индексов для одного id выполняются под блокировкой его полосы
+ * ({@link ReentrantLock}, общая для id с одинаковым остатком). Там же изменение
+ * пишется в журнал ({@link NotificationJournal}), а ожидание fsync происходит уже
+ * после снятия блокировки. Мониторы (compute у ConcurrentHashMap) для этого
+ * не используются: журнал и арена сами берут блокировки и пишут в файл,
+ * а виртуальный поток, ожидающий их внутри synchronized, занимает поток-носитель.
  */
-@Component
 public class NotificationStore {
 
-    private final Deque<Notification> notifications = new ConcurrentLinkedDeque<>();
+    private static final int LABEL_DICTIONARY_CAPACITY = 4096;
+    private static final int USER_DICTIONARY_CAPACITY = 65536;
+    private static final int ID_LOCK_STRIPES = 256;
+
+    private final ConcurrentMap<Long, StoredNotification> byId = new ConcurrentHashMap<>();
+    private final NavigableSet<StoredNotification> timeIndex = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<String, NavigableSet<StoredNotification>> byUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<StoredNotification>> byType = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> typeCounts = new ConcurrentHashMap<>();
+    private final StringDictionary labels = new StringDictionary(LABEL_DICTIONARY_CAPACITY);
+    private final StringDictionary users = new StringDictionary(USER_DICTIONARY_CAPACITY);
     private final AtomicLong idGenerator = new AtomicLong(1);
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModifiedMillis = System.currentTimeMillis();
+    private final ReentrantLock[] idLocks = new ReentrantLock[ID_LOCK_STRIPES];
+    private final NotificationJournal journal;
+    private final MessageArena arena;
+    private final TextIndex textIndex;
+    private final LevelRollups rollups = new LevelRollups();
+    private final List<Consumer<StoredNotification>> saveListeners = new CopyOnWriteArrayList<>();
+    private volatile StoreMetrics metrics = StoreMetrics.NONE;
+
+    public NotificationStore() {
+        this(NotificationJournal.NONE);
+    }
+
+    public NotificationStore(NotificationJournal journal) {
+        this(journal, MessageArena.onHeap(), true);
+    }
 
-    public Notification save(Notification notification) {
+    /**
+     * Создаёт хранилище поверх журнала и восстанавливает содержимое из него.
+     *
+     * @param fullTextSearch вести инвертированный индекс для {@link #search}
+     */
+    public NotificationStore(NotificationJournal journal, MessageArena arena, boolean fullTextSearch) {
+        this.journal = journal;
+        this.arena = arena;
+        this.textIndex = fullTextSearch ? new TextIndex() : null;
+        for (int i = 0; i < idLocks.length; i++) {
+            idLocks[i] = new ReentrantLock();
+        }
+        recover();
+    }
+
+    public StoredNotification save(Notification notification) {
+        long started = System.nanoTime();
         if (notification.getId() == null) {
             notification.setId(idGenerator.getAndIncrement());
         }
         if (notification.getCreatedAt() == null) {
             notification.setCreatedAt(LocalDateTime.now());
         }
-        notifications.add(notification);
-        return notification;
+        long position = -1;
+        StoredNotification saved;
+        ReentrantLock lock = lockFor(notification.getId());
+        lock.lock();
+        try {
+            position = journal.appendSave(notification);
+            saved = replace(notification);
+            modified();
+        } finally {
+            lock.unlock();
+            complete(position);
+        }
+        journal.awaitDurable(position);
+        notifySaved(saved);
+        return timed(StoreOperation.SAVE, started, saved);
+    }
+
+    /**
+     * Сохраняет пачку новых уведомлений. Id выдаются одним блоком, журнал пишет
+     * пачку одной операцией и ожидает fsync один раз на всю пачку. Блокировки id пачки
+     * берутся до записи в журнал, как при {@link #save}: запись, добавленная в журнал,
+     * не должна ждать блокировок, иначе {@code checkpointLsn} журнала ждал бы её вечно.
+     *
+     * @throws IllegalArgumentException если у какого-то уведомления уже есть id
+     */
+    public List<StoredNotification> saveAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        for (Notification notification : notifications) {
+            if (notification.getId() != null) {
+                throw new IllegalArgumentException(
+                        "Batched notifications must not have an id: " + notification.getId());
+            }
+        }
+        long firstId = idGenerator.getAndAdd(notifications.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notification = notifications.get(i);
+            notification.setId(firstId + i);
+            if (notification.getCreatedAt() == null) {
+                notification.setCreatedAt(now);
+            }
+        }
+        List<StoredNotification> saved = new ArrayList<>(notifications.size());
+        boolean[] stripes = lockStripes(firstId, notifications.size());
+        long position = -1;
+        try {
+            position = journal.appendSaveAll(notifications);
+            for (Notification notification : notifications) {
+                saved.add(replace(notification));
+            }
+            modified();
+        } finally {
+            unlockStripes(stripes);
+            complete(position);
+        }
+        journal.awaitDurable(position);
+        for (StoredNotification notification : saved) {
+            notifySaved(notification);
+        }
+        return timed(StoreOperation.SAVE_ALL, started, saved);
+    }
+
+    /**
+     * Регистрирует получателя каждого уведомления, принятого {@link #save} или {@link #saveAll},
+     * после того как оно стало видно читателям и устойчиво в журнале. Получатель вызывается
+     * в потоке записи и не должен блокироваться. При восстановлении из журнала не вызывается.
+     */
+    public void addSaveListener(Consumer<StoredNotification> listener) {
+        saveListeners.add(listener);
+    }
+
+    /**
+     * Задаёт получателя длительностей операций; по умолчанию {@link StoreMetrics#NONE}.
+     */
+    public void setMetrics(StoreMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void notifySaved(StoredNotification notification) {
+        for (Consumer<StoredNotification> listener : saveListeners) {
+            listener.accept(notification);
+        }
+    }
+
+    /**
+     * Заменяет существующее уведомление с тем же id.
+     *
+     * @return сохранённое уведомление или null, если уведомления с таким id нет
+     */
+    public StoredNotification update(Notification notification) {
+        if (notification.getId() == null) {
+            return null;
+        }
+        long started = System.nanoTime();
+        long position = -1;
+        StoredNotification updated;
+        ReentrantLock lock = lockFor(notification.getId());
+        lock.lock();
+        try {
+            StoredNotification previous = byId.get(notification.getId());
+            if (previous == null) {
+                return timed(StoreOperation.UPDATE, started, null);
+            }
+            if (notification.getCreatedAt() == null) {
+                notification.setCreatedAt(previous.getCreatedAt());
+            }
+            position = journal.appendUpdate(notification);
+            updated = replace(notification);
+            modified();
+        } finally {
+            lock.unlock();
+            complete(position);
+        }
+        journal.awaitDurable(position);
+        return timed(StoreOperation.UPDATE, started, updated);
     }
 
-    public List<Notification> findAll() {
-        return List.copyOf(notifications);
+    /**
+     * Все уведомления в порядке createdAt (при равенстве — по id).
+     */
+    public List<StoredNotification> findAll() {
+        long started = System.nanoTime();
+        return timed(StoreOperation.FIND_ALL, started, List.copyOf(timeIndex));
     }
 
-    public Notification findById(Long id) {
-        return notifications.stream()
-                .filter(n -> n.getId() != null && n.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+    public StoredNotification findById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return byId.get(id);
     }
 
     public boolean removeById(Long id) {
-        return notifications.removeIf(n -> n.getId() != null && n.getId().equals(id));
+        if (id == null) {
+            return false;
+        }
+        long started = System.nanoTime();
+        long position = -1;
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            StoredNotification stored = byId.get(id);
+            if (stored == null) {
+                return timed(StoreOperation.REMOVE, started, false);
+            }
+            position = journal.appendDelete(id);
+            unindex(stored);
+            byId.remove(id);
+            modified();
+        } finally {
+            lock.unlock();
+            complete(position);
+        }
+        journal.awaitDurable(position);
+        return timed(StoreOperation.REMOVE, started, true);
     }
 
-    public List<Notification> findSince(LocalDateTime threshold) {
-        return notifications.stream()
-                .filter(n -> n.getCreatedAt() != null && !n.getCreatedAt().isBefore(threshold))
-                .toList();
+    /**
+     * Удаляет пачку уведомлений по id. Журнал пишет удаления одной операцией и ожидает fsync
+     * один раз на пачку, версия хранилища меняется один раз. На время пачки удерживаются
+     * блокировки всех затронутых id.
+     *
+     * @return для каждого id, удалено ли уведомление; повтор id в пачке получает false
+     */
+    public boolean[] removeAll(long[] ids) {
+        boolean[] removed = new boolean[ids.length];
+        if (ids.length == 0) {
+            return removed;
+        }
+        long started = System.nanoTime();
+        boolean[] stripes = new boolean[ID_LOCK_STRIPES];
+        for (long id : ids) {
+            stripes[stripe(id)] = true;
+        }
+        lockStripes(stripes);
+        long position = -1;
+        try {
+            StoredNotification[] found = new StoredNotification[ids.length];
+            long[] foundIds = new long[ids.length];
+            Set<Long> seen = new HashSet<>(ids.length * 2);
+            int count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                StoredNotification stored = byId.get(ids[i]);
+                if (stored != null && seen.add(ids[i])) {
+                    removed[i] = true;
+                    found[count] = stored;
+                    foundIds[count++] = ids[i];
+                }
+            }
+            if (count == 0) {
+                return timed(StoreOperation.REMOVE_ALL, started, removed);
+            }
+            position = journal.appendDeleteAll(Arrays.copyOf(foundIds, count));
+            for (int i = 0; i < count; i++) {
+                unindex(found[i]);
+                byId.remove(foundIds[i]);
+            }
+            modified();
+        } finally {
+            unlockStripes(stripes);
+            complete(position);
+        }
+        journal.awaitDurable(position);
+        return timed(StoreOperation.REMOVE_ALL, started, removed);
+    }
+
+    /**
+     * Уведомления с createdAt не раньше threshold, отсортированные по времени.
+     * Стоимость O(log n + k), где k — размер результата.
+     */
+    public List<StoredNotification> findSince(LocalDateTime threshold) {
+        long started = System.nanoTime();
+        return timed(StoreOperation.FIND_SINCE, started, List.copyOf(timeIndex.tailSet(lowerBound(threshold), true)));
+    }
+
+    /**
+     * Уведомления с createdAt в полуинтервале [from, to), отсортированные по времени.
+     */
+    public List<StoredNotification> findBetween(LocalDateTime from, LocalDateTime to) {
+        long started = System.nanoTime();
+        return timed(StoreOperation.FIND_BETWEEN, started,
+                List.copyOf(timeIndex.subSet(lowerBound(from), true, lowerBound(to), false)));
+    }
+
+    /**
+     * Страница по временному индексу: начинается сразу после query.after()
+     * и обходит не больше элементов, чем нужно для limit.
+     * Без получателя фильтр по типам читается из индексов по типу: их диапазоны
+     * сливаются по (createdAt, id), так что выборка редкого типа не проходит мимо
+     * остальных уведомлений. Ящик пользователя фильтруется по типу при обходе.
+     */
+    public NotificationSlice findPage(NotificationQuery query) {
+        long started = System.nanoTime();
+        Set<String> types = query.types();
+        boolean filterByType = query.userId() != null && types != null && !types.isEmpty();
+        Iterator<StoredNotification> candidates = candidates(query);
+
+        List<StoredNotification> items = new ArrayList<>(Math.min(query.limit(), 256));
+        while (candidates.hasNext()) {
+            StoredNotification notification = candidates.next();
+            if (filterByType && !types.contains(notification.getType())) {
+                continue;
+            }
+            if (items.size() == query.limit()) {
+                return timed(StoreOperation.FIND_PAGE, started, new NotificationSlice(items, true));
+            }
+            items.add(notification);
+        }
+        return timed(StoreOperation.FIND_PAGE, started, new NotificationSlice(items, false));
+    }
+
+    /**
+     * Ленивый обход выборки query в порядке (createdAt, id) без ограничения limit,
+     * для выгрузки, не копирующей хранилище. Обход слабо согласован: записи,
+     * сделанные во время обхода, могут как попасть в него, так и нет.
+     */
+    public Iterator<StoredNotification> iterate(NotificationQuery query) {
+        Iterator<StoredNotification> candidates = candidates(query);
+        Set<String> types = query.types();
+        if (query.userId() == null || types == null || types.isEmpty()) {
+            return candidates;
+        }
+        return new Iterator<>() {
+            private StoredNotification next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public StoredNotification next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                StoredNotification current = next;
+                next = advance();
+                return current;
+            }
+
+            private StoredNotification advance() {
+                while (candidates.hasNext()) {
+                    StoredNotification candidate = candidates.next();
+                    if (types.contains(candidate.getType())) {
+                        return candidate;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Источник выборки: ящик пользователя (тип в нём не фильтруется), слияние индексов по типу
+     * или общий временной индекс.
+     */
+    private Iterator<StoredNotification> candidates(NotificationQuery query) {
+        Set<String> types = query.types();
+        if (query.userId() != null) {
+            NavigableSet<StoredNotification> inbox = byUser.get(query.userId());
+            return inbox != null ? range(inbox, query).iterator() : Collections.emptyIterator();
+        }
+        if (types != null && !types.isEmpty()) {
+            List<Iterator<StoredNotification>> postings = new ArrayList<>(types.size());
+            for (String type : types) {
+                NavigableSet<StoredNotification> typeIndex = byType.get(type);
+                if (typeIndex != null) {
+                    postings.add(range(typeIndex, query).iterator());
+                }
+            }
+            return new TimeOrderedMerge(postings);
+        }
+        return range(timeIndex, query).iterator();
+    }
+
+    /**
+     * Полнотекстовый поиск: уведомления, содержащие все слова запроса,
+     * от новых к старым, строго старше before (если задан).
+     *
+     * @throws IllegalArgumentException если префикс запроса раскрывается в слишком много слов
+     * @throws IllegalStateException    если хранилище создано без полнотекстового индекса
+     */
+    public NotificationSlice search(TextQuery query, NotificationQuery.Position before, int limit) {
+        if (textIndex == null) {
+            throw new IllegalStateException("Full-text search is disabled");
+        }
+        long started = System.nanoTime();
+        return timed(StoreOperation.SEARCH, started, textIndex.search(query, before, limit));
+    }
+
+    /**
+     * Число уведомлений по уровням (типам) в корзинах interval, пересекающихся с [from, to).
+     * Отвечает по счётчикам, которые ведутся при сохранении и удалении, не обходя уведомления;
+     * корзины старше {@link RollupInterval#horizon()} не хранятся.
+     *
+     * @param types только эти уровни; null или пустое множество — все
+     * @return уровень → начало корзины в миллисекундах UTC → число уведомлений, только непустые корзины
+     */
+    public Map<String, NavigableMap<Long, Long>> countByLevel(RollupInterval interval, LocalDateTime from,
+                                                              LocalDateTime to, Set<String> types) {
+        long started = System.nanoTime();
+        long fromMillis = StoredNotification.toMillis(from);
+        long toMillis = StoredNotification.toMillisCeiling(to);
+        return timed(StoreOperation.ROLLUP, started, rollups.query(interval, fromMillis, toMillis, types));
+    }
+
+    public boolean isSearchEnabled() {
+        return textIndex != null;
+    }
+
+    /**
+     * Число различных слов в полнотекстовом индексе.
+     */
+    public int searchVocabularySize() {
+        return textIndex != null ? textIndex.vocabularySize() : 0;
+    }
+
+    /**
+     * Удаляет самые старые уведомления с createdAt раньше threshold.
+     * За один вызов просматривается не больше budget записей с головы временного индекса.
+     *
+     * @return число удалённых уведомлений
+     */
+    public int evictOlderThan(LocalDateTime threshold, int budget) {
+        StoredNotification bound = lowerBound(threshold);
+        return evictHead(timeIndex, (oldest, taken) -> oldest.compareTo(bound) < 0, budget);
+    }
+
+    /**
+     * Удаляет самые старые уведомления, пока их общее число больше maxCount.
+     */
+    public int evictOldest(int maxCount, int budget) {
+        return evictHead(timeIndex, (oldest, taken) -> size() - taken > maxCount, budget);
     }
-}
 
+    /**
+     * Удаляет самые старые уведомления типа type, пока их больше maxCount.
+     */
+    public int evictOldestOfType(String type, int maxCount, int budget) {
+        NavigableSet<StoredNotification> typeIndex = byType.get(type);
+        if (typeIndex == null) {
+            return 0;
+        }
+        return evictHead(typeIndex, (oldest, taken) -> countByType(type) - taken > maxCount, budget);
+    }
+
+    /**
+     * Живое (слабо согласованное) представление всех уведомлений в порядке createdAt
+     * без копирования. Используется для снимков и потоковой выгрузки.
+     */
+    public Collection<StoredNotification> timeOrderedView() {
+        return Collections.unmodifiableCollection(timeIndex);
+    }
+
+    /**
+     * Версия содержимого: растёт на каждом сохранении, обновлении, удалении и вытеснении
+     * после того, как изменение стало видно читателям. Если версия не изменилась,
+     * все чтения вернут то же, что и раньше. Отсчёт начинается заново при каждом запуске.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Время последнего изменения в миллисекундах эпохи; до первого изменения — время создания хранилища.
+     */
+    public long lastModified() {
+        return lastModifiedMillis;
+    }
+
+    /**
+     * Самое позднее createdAt среди уведомлений или null, если хранилище пусто.
+     */
+    public LocalDateTime newestCreatedAt() {
+        Iterator<StoredNotification> newest = timeIndex.descendingIterator();
+        return newest.hasNext() ? newest.next().getCreatedAt() : null;
+    }
+
+    /**
+     * Следующий id, который выдаст хранилище.
+     */
+    public long nextId() {
+        return idGenerator.get();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public int userCount() {
+        return byUser.size();
+    }
+
+    public int countByType(String type) {
+        AtomicInteger count = typeCounts.get(type);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Объём чанков, выделенных под тексты уведомлений.
+     */
+    public long messageArenaBytes() {
+        return arena.reservedBytes();
+    }
+
+    private void recover() {
+        AtomicLong maxId = new AtomicLong();
+        try {
+            journal.replay(new NotificationJournal.Replayer() {
+                @Override
+                public void put(Notification notification) {
+                    maxId.accumulateAndGet(notification.getId(), Math::max);
+                    replace(notification);
+                }
+
+                @Override
+                public void delete(long id) {
+                    maxId.accumulateAndGet(id, Math::max);
+                    StoredNotification stored = byId.remove(id);
+                    if (stored != null) {
+                        unindex(stored);
+                    }
+                }
+
+                @Override
+                public void reserveIds(long nextId) {
+                    maxId.accumulateAndGet(nextId - 1, Math::max);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover notifications from journal", e);
+        }
+        idGenerator.set(maxId.get() + 1);
+    }
+
+    private void modified() {
+        lastModifiedMillis = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
+    private void complete(long position) {
+        if (position >= 0) {
+            journal.complete(position);
+        }
+    }
+
+    /**
+     * Собирает с головы index не больше budget id, пока overflow для очередного уведомления
+     * и числа уже отобранных истинно, и удаляет их одной пачкой: удаления по одному
+     * ждали бы fsync журнала каждое.
+     */
+    private int evictHead(NavigableSet<StoredNotification> index,
+                          BiPredicate<StoredNotification, Integer> overflow, int budget) {
+        long started = System.nanoTime();
+        long[] ids = new long[Math.min(budget, ID_LOCK_STRIPES)];
+        int taken = 0;
+        for (Iterator<StoredNotification> it = index.iterator(); taken < budget && it.hasNext(); ) {
+            StoredNotification oldest = it.next();
+            if (!overflow.test(oldest, taken)) {
+                break;
+            }
+            if (taken == ids.length) {
+                ids = Arrays.copyOf(ids, (int) Math.min((long) budget, ids.length * 2L));
+            }
+            ids[taken++] = oldest.getId();
+        }
+        int evicted = 0;
+        for (boolean removed : removeAll(Arrays.copyOf(ids, taken))) {
+            if (removed) {
+                evicted++;
+            }
+        }
+        metrics.record(StoreOperation.EVICT, System.nanoTime() - started);
+        return evicted;
+    }
+
+    private <T> T timed(StoreOperation operation, long started, T result) {
+        metrics.record(operation, System.nanoTime() - started);
+        return result;
+    }
+
+    private ReentrantLock lockFor(long id) {
+        return idLocks[stripe(id)];
+    }
+
+    private static int stripe(long id) {
+        return (int) (id & (ID_LOCK_STRIPES - 1));
+    }
+
+    /**
+     * Блокировки id подряд от firstId; см. {@link #lockStripes(boolean[])}.
+     */
+    private boolean[] lockStripes(long firstId, int count) {
+        boolean[] stripes = new boolean[ID_LOCK_STRIPES];
+        for (int i = 0; i < Math.min(count, ID_LOCK_STRIPES); i++) {
+            stripes[stripe(firstId + i)] = true;
+        }
+        lockStripes(stripes);
+        return stripes;
+    }
+
+    /**
+     * Берёт отмеченные блокировки по возрастанию номера: пачки не блокируют друг друга
+     * намертво, а одиночные операции держат не больше одной.
+     */
+    private void lockStripes(boolean[] stripes) {
+        for (int i = 0; i < ID_LOCK_STRIPES; i++) {
+            if (stripes[i]) {
+                idLocks[i].lock();
+            }
+        }
+    }
+
+    private void unlockStripes(boolean[] stripes) {
+        for (int i = ID_LOCK_STRIPES - 1; i >= 0; i--) {
+            if (stripes[i]) {
+                idLocks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Кладёт уведомление в индексы вместо прежнего с тем же id. Вызывается под блокировкой id
+     * (или при восстановлении, пока хранилище никому не доступно).
+     */
+    private StoredNotification replace(Notification notification) {
+        StoredNotification previous = byId.get(notification.getId());
+        if (previous != null) {
+            unindex(previous);
+        }
+        StoredNotification stored = index(notification);
+        byId.put(notification.getId(), stored);
+        return stored;
+    }
+
+    private StoredNotification index(Notification notification) {
+        StoredNotification stored = compact(notification);
+        timeIndex.add(stored);
+        addToPartition(byUser, stored.getUserId(), stored);
+        if (stored.getType() != null) {
+            addToPartition(byType, stored.getType(), stored);
+            typeCounts.computeIfAbsent(stored.getType(), type -> new AtomicInteger()).incrementAndGet();
+        }
+        if (textIndex != null) {
+            textIndex.add(stored, notification.getTitle(), notification.getMessage());
+        }
+        rollups.add(stored.getType(), stored.getCreatedAtMillis(), 1);
+        return stored;
+    }
+
+    private void unindex(StoredNotification stored) {
+        timeIndex.remove(stored);
+        removeFromPartition(byUser, stored.getUserId(), stored);
+        if (stored.getType() != null) {
+            removeFromPartition(byType, stored.getType(), stored);
+            typeCounts.get(stored.getType()).decrementAndGet();
+        }
+        if (textIndex != null) {
+            textIndex.remove(stored);
+        }
+        rollups.add(stored.getType(), stored.getCreatedAtMillis(), -1);
+    }
+
+    private StoredNotification compact(Notification notification) {
+        long id = notification.getId();
+        long createdAtMillis = StoredNotification.toMillis(notification.getCreatedAt());
+        String type = labels.canonical(notification.getType());
+        String title = labels.canonical(notification.getTitle());
+        String userId = users.canonical(notification.getUserId());
+        if (notification.getMessage() == null) {
+            return new StoredNotification(id, createdAtMillis, type, title, userId, null, 0, -1);
+        }
+        byte[] message = notification.getMessage().getBytes(StandardCharsets.UTF_8);
+        return arena.write(message, (chunk, offset) ->
+                new StoredNotification(id, createdAtMillis, type, title, userId, chunk, offset, message.length));
+    }
+
+    /**
+     * Часть индекса между границами запроса: from или позиция курсора снизу, to сверху.
+     */
+    private static NavigableSet<StoredNotification> range(NavigableSet<StoredNotification> index,
+                                                          NotificationQuery query) {
+        StoredNotification lower = query.from() != null ? lowerBound(query.from()) : null;
+        boolean lowerInclusive = true;
+        if (query.after() != null) {
+            StoredNotification afterKey = StoredNotification.probe(query.after().createdAtMillis(), query.after().id());
+            if (lower == null || afterKey.compareTo(lower) >= 0) {
+                lower = afterKey;
+                lowerInclusive = false;
+            }
+        }
+        NavigableSet<StoredNotification> range = index;
+        if (lower != null) {
+            range = range.tailSet(lower, lowerInclusive);
+        }
+        if (query.to() != null) {
+            range = range.headSet(lowerBound(query.to()), false);
+        }
+        return range;
+    }
+
+    private static StoredNotification lowerBound(LocalDateTime createdAt) {
+        return StoredNotification.probe(StoredNotification.toMillisCeiling(createdAt), Long.MIN_VALUE);
+    }
+
+    private static void addToPartition(ConcurrentMap<String, NavigableSet<StoredNotification>> partitions,
+                                       String partition, StoredNotification stored) {
+        if (partition == null) {
+            return;
+        }
+        partitions.compute(partition, (name, index) -> {
+            NavigableSet<StoredNotification> target = index != null ? index : new ConcurrentSkipListSet<>();
+            target.add(stored);
+            return target;
+        });
+    }
+
+    private static void removeFromPartition(ConcurrentMap<String, NavigableSet<StoredNotification>> partitions,
+                                            String partition, StoredNotification stored) {
+        if (partition == null) {
+            return;
+        }
+        // пустой раздел удаляется под той же блокировкой, что и вставка, чтобы не потерять запись
+        partitions.computeIfPresent(partition, (name, index) -> {
+            index.remove(stored);
+            return index.isEmpty() ? null : index;
+        });
+    }
+}
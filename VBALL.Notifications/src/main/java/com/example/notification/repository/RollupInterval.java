@@ -0,0 +1,32 @@
+package com.example.notification.repository;
+
+import java.time.Duration;
+
+/**
+ * Ширина корзин счётчиков по уровням и то, насколько далеко в прошлое они хранятся.
+ * Уведомления с createdAt старше горизонта не учитываются, а корзины старше него удаляются.
+ */
+public enum RollupInterval {
+    MINUTE(Duration.ofMinutes(1), Duration.ofHours(48)),
+    HOUR(Duration.ofHours(1), Duration.ofDays(90));
+
+    private final long widthMillis;
+    private final long horizonBuckets;
+
+    RollupInterval(Duration width, Duration horizon) {
+        this.widthMillis = width.toMillis();
+        this.horizonBuckets = horizon.toMillis() / widthMillis;
+    }
+
+    public long widthMillis() {
+        return widthMillis;
+    }
+
+    public Duration horizon() {
+        return Duration.ofMillis(horizonBuckets * widthMillis);
+    }
+
+    long horizonBuckets() {
+        return horizonBuckets;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.notification.repository;
+
+/**
+ * Получатель длительностей операций хранилища. Вызывается в потоке операции после
+ * её успешного завершения, поэтому не должен блокироваться и выделять память.
+ */
+@FunctionalInterface
+public interface StoreMetrics {
+
+    StoreMetrics NONE = (operation, nanos) -> {
+    };
+
+    void record(StoreOperation operation, long nanos);
+}
@@ -0,0 +1,20 @@
+package com.example.notification.repository;
+
+/**
+ * Операции хранилища, длительность которых передаётся в {@link StoreMetrics}.
+ * Поиск по id не замеряется: замер стоил бы столько же, сколько сам поиск.
+ */
+public enum StoreOperation {
+    SAVE,
+    SAVE_ALL,
+    UPDATE,
+    REMOVE,
+    REMOVE_ALL,
+    FIND_ALL,
+    FIND_SINCE,
+    FIND_BETWEEN,
+    FIND_PAGE,
+    SEARCH,
+    ROLLUP,
+    EVICT
+}
@@ -0,0 +1,130 @@
+package com.example.notification.repository;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Компактное неизменяемое представление уведомления внутри хранилища.
+ * Id и createdAt хранятся примитивами (createdAt — миллисекунды UTC, точность
+ * хранилища), type, title и userId — ссылками на общие экземпляры из словаря,
+ * а текст — UTF-8 байтами в чанке {@link MessageArena}. Полные объекты
+ * ({@link LocalDateTime}, строка сообщения) создаются только при чтении.
+ * <p>
+ * Экземпляр служит и ключом временных индексов: порядок — (createdAt, id).
+ */
+public final class StoredNotification implements Comparable<StoredNotification> {
+
+    /**
+     * Ключ меньше любого уведомления — начало временного индекса.
+     */
+    static final StoredNotification FIRST = probe(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final long id;
+    private final long createdAtMillis;
+    private final String type;
+    private final String title;
+    private final String userId;
+    private final MessageArena.Chunk chunk;
+    private final int offset;
+    private final int length;
+
+    StoredNotification(long id, long createdAtMillis, String type, String title, String userId,
+                       MessageArena.Chunk chunk, int offset, int length) {
+        this.id = id;
+        this.createdAtMillis = createdAtMillis;
+        this.type = type;
+        this.title = title;
+        this.userId = userId;
+        this.chunk = chunk;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Ключ для поиска во временном индексе, не связанный с данными.
+     */
+    static StoredNotification probe(long createdAtMillis, long id) {
+        return new StoredNotification(id, createdAtMillis, null, null, null, null, 0, -1);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return fromMillis(createdAtMillis);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Декодирует текст из арены; каждый вызов создаёт новую строку.
+     */
+    public String getMessage() {
+        if (length < 0) {
+            return null;
+        }
+        if (length == 0) {
+            return "";
+        }
+        return chunk.decode(offset, length);
+    }
+
+    /**
+     * Длина текста в байтах UTF-8 или -1, если текста нет.
+     */
+    public int messageLength() {
+        return length;
+    }
+
+    /**
+     * Копирует UTF-8 байты текста в target с его текущей позиции без декодирования.
+     */
+    public void copyMessageTo(ByteBuffer target) {
+        if (length > 0) {
+            chunk.copyTo(offset, length, target);
+        }
+    }
+
+    @Override
+    public int compareTo(StoredNotification other) {
+        int byTime = Long.compare(createdAtMillis, other.createdAtMillis);
+        return byTime != 0 ? byTime : Long.compare(id, other.id);
+    }
+
+    /**
+     * Миллисекунды UTC для createdAt с отбрасыванием долей миллисекунды.
+     */
+    public static long toMillis(LocalDateTime createdAt) {
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1000 + createdAt.getNano() / 1_000_000;
+    }
+
+    /**
+     * Наименьшее число миллисекунд, не меньшее createdAt; нужно для границ диапазонов,
+     * чтобы запись с усечённым временем не попала в выборку раньше своей границы.
+     */
+    static long toMillisCeiling(LocalDateTime createdAt) {
+        long millis = toMillis(createdAt);
+        return createdAt.getNano() % 1_000_000 == 0 ? millis : millis + 1;
+    }
+
+    public static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+}
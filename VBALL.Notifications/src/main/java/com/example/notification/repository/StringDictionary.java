@@ -0,0 +1,35 @@
+package com.example.notification.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ограниченный словарь повторяющихся строк (уровни, заголовки, получатели).
+ * Вместо собственной копии каждое уведомление ссылается на общий экземпляр;
+ * при сжатых ссылках это стоит столько же, сколько int-код, и не требует декодирования.
+ * Когда словарь заполнен, новые значения хранятся как есть.
+ */
+final class StringDictionary {
+
+    private final int capacity;
+    private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+
+    StringDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = values.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (values.size() >= capacity) {
+            return value;
+        }
+        existing = values.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+}
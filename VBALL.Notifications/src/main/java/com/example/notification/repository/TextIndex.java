@@ -0,0 +1,151 @@
+package com.example.notification.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Инвертированный индекс по словам заголовка и текста. Для каждого слова хранится
+ * список уведомлений, упорядоченный по (createdAt, id), поэтому поиск сразу идёт
+ * от новых к старым и останавливается на первой полной странице.
+ * <p>
+ * Многословный запрос обходит список самого редкого слова, а остальные слова
+ * проверяет по тексту кандидата. Префиксное слово раскрывается через
+ * отсортированный словарь в объединение списков всех подходящих слов.
+ * <p>
+ * Изменения выполняются хранилищем под блокировкой записи в первичном индексе;
+ * список одного слова меняется под блокировкой своего ключа.
+ */
+final class TextIndex {
+
+    static final int MAX_PREFIX_EXPANSION = 1024;
+
+    private final ConcurrentMap<String, Posting> postings = new ConcurrentHashMap<>();
+    private final NavigableSet<String> vocabulary = new ConcurrentSkipListSet<>();
+
+    void add(StoredNotification notification, String title, String message) {
+        for (String token : TextTokenizer.tokens(title, message)) {
+            postings.compute(token, (word, posting) -> {
+                Posting target = posting;
+                if (target == null) {
+                    target = new Posting();
+                    vocabulary.add(word);
+                }
+                if (target.documents.add(notification)) {
+                    target.size++;
+                }
+                return target;
+            });
+        }
+    }
+
+    void remove(StoredNotification notification) {
+        for (String token : TextTokenizer.tokens(notification.getTitle(), notification.getMessage())) {
+            postings.computeIfPresent(token, (word, posting) -> {
+                if (posting.documents.remove(notification)) {
+                    posting.size--;
+                }
+                if (posting.size > 0) {
+                    return posting;
+                }
+                vocabulary.remove(word);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Страница совпадений от новых к старым, строго старше before (если задан).
+     *
+     * @throws IllegalArgumentException если префикс раскрывается в слишком много слов
+     */
+    NotificationSlice search(TextQuery query, NotificationQuery.Position before, int limit) {
+        List<List<Posting>> matches = new ArrayList<>(query.terms().size());
+        int driver = -1;
+        long driverSize = Long.MAX_VALUE;
+        for (TextQuery.Term term : query.terms()) {
+            List<Posting> termPostings = expand(term);
+            long size = 0;
+            for (Posting posting : termPostings) {
+                size += posting.size;
+            }
+            if (size == 0) {
+                return new NotificationSlice(List.of(), false);
+            }
+            if (size < driverSize) {
+                driverSize = size;
+                driver = matches.size();
+            }
+            matches.add(termPostings);
+        }
+
+        StoredNotification bound = before != null ? StoredNotification.probe(before.createdAtMillis(), before.id()) : null;
+        List<Iterator<StoredNotification>> sources = new ArrayList<>();
+        for (Posting posting : matches.get(driver)) {
+            NavigableSet<StoredNotification> documents = bound != null
+                    ? posting.documents.headSet(bound, false)
+                    : posting.documents;
+            sources.add(documents.descendingIterator());
+        }
+        Iterator<StoredNotification> candidates = new TimeOrderedMerge(sources, Comparator.reverseOrder());
+
+        List<TextQuery.Term> others = new ArrayList<>(query.terms());
+        others.remove(driver);
+        List<StoredNotification> items = new ArrayList<>(Math.min(limit, 256));
+        while (candidates.hasNext()) {
+            StoredNotification candidate = candidates.next();
+            if (!others.isEmpty() && !matchesAll(candidate, others)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new NotificationSlice(items, true);
+            }
+            items.add(candidate);
+        }
+        return new NotificationSlice(items, false);
+    }
+
+    int vocabularySize() {
+        return vocabulary.size();
+    }
+
+    private List<Posting> expand(TextQuery.Term term) {
+        if (!term.prefix()) {
+            Posting posting = postings.get(term.token());
+            return posting != null ? List.of(posting) : List.of();
+        }
+        List<Posting> expanded = new ArrayList<>();
+        for (String word : vocabulary.subSet(term.token(), true, term.token() + Character.MAX_VALUE, false)) {
+            if (expanded.size() == MAX_PREFIX_EXPANSION) {
+                throw new IllegalArgumentException("Prefix matches too many words: " + term.token() + "*");
+            }
+            Posting posting = postings.get(word);
+            if (posting != null) {
+                expanded.add(posting);
+            }
+        }
+        return expanded;
+    }
+
+    private static boolean matchesAll(StoredNotification candidate, List<TextQuery.Term> terms) {
+        Set<String> tokens = TextTokenizer.tokens(candidate.getTitle(), candidate.getMessage());
+        for (TextQuery.Term term : terms) {
+            if (!term.matches(tokens)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Posting {
+        private final NavigableSet<StoredNotification> documents = new ConcurrentSkipListSet<>();
+        // меняется под блокировкой ключа; читается без неё только для выбора ведущего слова
+        private volatile int size;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.notification.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Разобранный полнотекстовый запрос: все слова должны встретиться в уведомлении.
+ * Слово со звёздочкой в конце ("корт*") ищется как префикс.
+ *
+ * @param terms слова запроса в том виде, в каком их хранит индекс
+ */
+public record TextQuery(List<Term> terms) {
+
+    public static final int MAX_TERMS = 8;
+    public static final int MIN_PREFIX_LENGTH = 2;
+
+    /**
+     * @param token  слово в нижнем регистре
+     * @param prefix искать все слова, начинающиеся с token
+     */
+    public record Term(String token, boolean prefix) {
+
+        boolean matches(Set<String> tokens) {
+            if (!prefix) {
+                return tokens.contains(token);
+            }
+            for (String candidate : tokens) {
+                if (candidate.startsWith(token)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException если в запросе нет слов, их слишком много
+     *                                  или префикс слишком короткий
+     */
+    public static TextQuery parse(String text) {
+        Set<Term> terms = new LinkedHashSet<>();
+        if (text != null) {
+            for (String word : text.trim().split("\\s+")) {
+                boolean prefix = word.endsWith("*");
+                List<String> tokens = new ArrayList<>();
+                TextTokenizer.forEachToken(word, tokens::add);
+                for (int i = 0; i < tokens.size(); i++) {
+                    boolean last = i == tokens.size() - 1;
+                    if (prefix && last && tokens.get(i).length() < MIN_PREFIX_LENGTH) {
+                        throw new IllegalArgumentException(
+                                "Prefix must have at least " + MIN_PREFIX_LENGTH + " characters: " + word);
+                    }
+                    terms.add(new Term(tokens.get(i), prefix && last));
+                }
+            }
+        }
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query has no words to search for");
+        }
+        if (terms.size() > MAX_TERMS) {
+            throw new IllegalArgumentException("Query has more than " + MAX_TERMS + " words");
+        }
+        return new TextQuery(List.copyOf(terms));
+    }
+}
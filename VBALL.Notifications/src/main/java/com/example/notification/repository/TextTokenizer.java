@@ -0,0 +1,51 @@
+package com.example.notification.repository;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Разбиение текста на слова для полнотекстового индекса: непрерывные последовательности
+ * букв и цифр в нижнем регистре. Слишком длинные слова обрезаются.
+ */
+final class TextTokenizer {
+
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    private TextTokenizer() {
+    }
+
+    static void forEachToken(String text, Consumer<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    token.appendCodePoint(Character.toLowerCase(codePoint));
+                }
+            } else if (!token.isEmpty()) {
+                consumer.accept(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            consumer.accept(token.toString());
+        }
+    }
+
+    /**
+     * Различные слова всех переданных текстов.
+     */
+    static Set<String> tokens(String... texts) {
+        Set<String> tokens = new HashSet<>();
+        for (String text : texts) {
+            forEachToken(text, tokens::add);
+        }
+        return tokens;
+    }
+}
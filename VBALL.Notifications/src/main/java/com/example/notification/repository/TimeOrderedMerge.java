@@ -0,0 +1,74 @@
+package com.example.notification.repository;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Слияние нескольких упорядоченных по (createdAt, id) обходов в один.
+ * Уведомление, встреченное в нескольких источниках, выдаётся один раз.
+ */
+final class TimeOrderedMerge implements Iterator<StoredNotification> {
+
+    private final PriorityQueue<Source> heads;
+    private StoredNotification last;
+
+    TimeOrderedMerge(List<Iterator<StoredNotification>> sources) {
+        this(sources, Comparator.naturalOrder());
+    }
+
+    /**
+     * @param order порядок, в котором упорядочены источники: прямой или обратный
+     */
+    TimeOrderedMerge(List<Iterator<StoredNotification>> sources, Comparator<StoredNotification> order) {
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> order.compare(a.head, b.head));
+        for (Iterator<StoredNotification> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Source(source.next(), source));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        skipDuplicates();
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public StoredNotification next() {
+        skipDuplicates();
+        Source smallest = heads.poll();
+        if (smallest == null) {
+            throw new NoSuchElementException();
+        }
+        last = smallest.head;
+        advance(smallest);
+        return last;
+    }
+
+    private void skipDuplicates() {
+        while (last != null && !heads.isEmpty() && heads.peek().head.compareTo(last) == 0) {
+            advance(heads.poll());
+        }
+    }
+
+    private void advance(Source source) {
+        if (source.rest.hasNext()) {
+            source.head = source.rest.next();
+            heads.add(source);
+        }
+    }
+
+    private static final class Source {
+        private StoredNotification head;
+        private final Iterator<StoredNotification> rest;
+
+        private Source(StoredNotification head, Iterator<StoredNotification> rest) {
+            this.head = head;
+            this.rest = rest;
+        }
+    }
+}
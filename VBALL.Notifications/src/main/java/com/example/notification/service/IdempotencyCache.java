@@ -0,0 +1,186 @@
+package com.example.notification.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ключи идемпотентности приёма: помнит, какой id получило уведомление, сохранённое
+ * с данным ключом, чтобы повтор запроса вернул тот же id вместо новой копии.
+ * Ключ живёт window с момента первого запроса; ключей не больше maxKeys —
+ * при переполнении забываются самые старые из сохранённых. Захваченный ключ при переполнении
+ * не забывается, иначе повтор захватил бы его второй раз, поэтому ключей может быть
+ * больше maxKeys на число сохраняемых в этот момент.
+ * <p>
+ * Первый запрос с ключом захватывает его ({@link #claim} возвращает {@link #CLAIMED}) и обязан
+ * затем вызвать {@link #complete} с id или {@link #release}, если сохранить не удалось.
+ * Пока ключ захвачен, повторы видят {@link #PENDING}. Освобождённый ключ остаётся на своём
+ * месте в очереди вытеснения и захватывается повтором заново, так что очередь растёт
+ * только с новыми ключами.
+ */
+public final class IdempotencyCache {
+
+    public static final long CLAIMED = -1;
+    public static final long PENDING = -2;
+    public static final long TIMED_OUT = -3;
+    private static final long RELEASED = -4;
+    private static final long EVICTED = -5;
+
+    public static final int DEFAULT_MAX_KEYS = 100_000;
+    public static final Duration DEFAULT_WINDOW = Duration.ofHours(1);
+    public static final Duration DEFAULT_PENDING_WAIT = Duration.ofSeconds(10);
+
+    private static final long PENDING_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final AtomicLongFieldUpdater<Entry> ID = AtomicLongFieldUpdater.newUpdater(Entry.class, "id");
+
+    private final int maxKeys;
+    private final long windowNanos;
+    private final long pendingWaitNanos;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    /** Ключи в порядке захвата: голова очереди истекает первой. */
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyCache() {
+        this(DEFAULT_MAX_KEYS, DEFAULT_WINDOW);
+    }
+
+    public IdempotencyCache(int maxKeys, Duration window) {
+        this(maxKeys, window, DEFAULT_PENDING_WAIT);
+    }
+
+    /**
+     * @param pendingWait сколько {@link #claimOrWait} ждёт ключ, который сохраняет другой запрос
+     */
+    public IdempotencyCache(int maxKeys, Duration window, Duration pendingWait) {
+        if (maxKeys <= 0 || window.isNegative() || window.isZero() || pendingWait.isNegative()) {
+            throw new IllegalArgumentException("maxKeys and window must be positive, pendingWait not negative");
+        }
+        this.maxKeys = maxKeys;
+        this.windowNanos = window.toNanos();
+        this.pendingWaitNanos = pendingWait.toNanos();
+    }
+
+    /**
+     * Не блокируется.
+     *
+     * @return id уведомления, уже сохранённого с этим ключом, {@link #CLAIMED}, если ключ
+     * захвачен вызывающим, или {@link #PENDING}, если его сохраняет другой запрос
+     */
+    public long claim(String key) {
+        long now = System.nanoTime();
+        Entry claimed = null;
+        while (true) {
+            Entry existing = entries.get(key);
+            if (existing != null && !existing.expiredAt(now, windowNanos)) {
+                long id = existing.id;
+                if (id == RELEASED) {
+                    if (ID.compareAndSet(existing, RELEASED, PENDING)) {
+                        return CLAIMED;
+                    }
+                    continue;
+                }
+                if (id != EVICTED) {
+                    return id;
+                }
+            }
+            if (claimed == null) {
+                claimed = new Entry(key, now);
+            }
+            boolean added = existing == null
+                    ? entries.putIfAbsent(key, claimed) == null
+                    : entries.replace(key, existing, claimed);
+            if (added) {
+                order.add(claimed);
+                evict(now);
+                return CLAIMED;
+            }
+        }
+    }
+
+    /**
+     * Как {@link #claim}, но пока ключ сохраняет другой запрос, ждёт его результата,
+     * не дольше pendingWait. Если тот не смог сохранить уведомление, ключ захватывается вызывающим.
+     *
+     * @return как {@link #claim}, или {@link #TIMED_OUT}, если ключ так и не освободился
+     */
+    public long claimOrWait(String key) {
+        long deadline = System.nanoTime() + pendingWaitNanos;
+        long result;
+        while ((result = claim(key)) == PENDING) {
+            if (System.nanoTime() - deadline >= 0) {
+                return TIMED_OUT;
+            }
+            LockSupport.parkNanos(PENDING_POLL_NANOS);
+        }
+        return result;
+    }
+
+    /**
+     * Запоминает id уведомления, сохранённого с захваченным ключом.
+     */
+    public void complete(String key, long id) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            ID.compareAndSet(entry, PENDING, id);
+        }
+    }
+
+    /**
+     * Освобождает захваченный ключ, не сохранив уведомление: следующий запрос захватит его заново.
+     */
+    public void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            ID.compareAndSet(entry, PENDING, RELEASED);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Iterator<Entry> it = order.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            boolean expired = entry.expiredAt(now, windowNanos);
+            if (!expired && entries.size() <= maxKeys) {
+                return;
+            }
+            if (entries.get(entry.key) != entry) {
+                // захвачен заново после истечения
+                it.remove();
+            } else if (expired || forgettable(entry)) {
+                it.remove();
+                entries.remove(entry.key, entry);
+            }
+        }
+    }
+
+    /**
+     * Сохранённый ключ забывается сразу, освобождённый — только если его не захватили повторно.
+     */
+    private static boolean forgettable(Entry entry) {
+        long id = entry.id;
+        return id >= 0 || id == EVICTED || (id == RELEASED && ID.compareAndSet(entry, RELEASED, EVICTED));
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final long claimedAt;
+        private volatile long id = PENDING;
+
+        private Entry(String key, long claimedAt) {
+            this.key = key;
+            this.claimedAt = claimedAt;
+        }
+
+        private boolean expiredAt(long now, long windowNanos) {
+            return now - claimedAt >= windowNanos;
+        }
+    }
+}
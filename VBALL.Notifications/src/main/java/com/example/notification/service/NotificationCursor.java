@@ -0,0 +1,38 @@
+package com.example.notification.service;
+
+import com.example.notification.exception.InvalidRequestException;
+import com.example.notification.repository.NotificationQuery;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Кодирование позиции во временном индексе в непрозрачный курсор для клиентов.
+ */
+final class NotificationCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private NotificationCursor() {
+    }
+
+    static String encode(NotificationQuery.Position position) {
+        String raw = Long.toString(position.createdAtMillis()) + SEPARATOR + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static NotificationQuery.Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new NotificationQuery.Position(
+                    Long.parseLong(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.notification.service;
+
+import com.example.notification.config.RetentionProperties;
+import com.example.notification.repository.NotificationStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фоновое вытеснение уведомлений по возрасту, общему числу и числу по типу.
+ * Работает порциями по batchSize с головы временных индексов, поэтому
+ * не делает полных обходов и не блокирует запись надолго.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    private final NotificationStore notificationStore;
+    private final RetentionProperties properties;
+
+    private final LongAdder evictedByAge = new LongAdder();
+    private final LongAdder evictedByCount = new LongAdder();
+    private final LongAdder evictedByType = new LongAdder();
+
+    public NotificationRetentionService(NotificationStore notificationStore, RetentionProperties properties) {
+        this.notificationStore = notificationStore;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.retention.interval:PT5S}")
+    public void evictScheduled() {
+        int evicted = evict();
+        if (evicted > 0) {
+            logger.debug("Retention evicted {} notifications, store size {}", evicted, notificationStore.size());
+        }
+    }
+
+    /**
+     * Выполняет проходы вытеснения, пока очередной проход упирается в размер порции.
+     *
+     * @return число удалённых уведомлений
+     */
+    public int evict() {
+        int total = 0;
+        int pass;
+        do {
+            pass = evictPass();
+            total += pass;
+        } while (pass >= properties.batchSize());
+        return total;
+    }
+
+    private int evictPass() {
+        int batch = properties.batchSize();
+        int evicted = 0;
+
+        if (properties.maxAge() != null) {
+            int byAge = notificationStore.evictOlderThan(LocalDateTime.now().minus(properties.maxAge()), batch);
+            evictedByAge.add(byAge);
+            evicted += byAge;
+        }
+        for (Map.Entry<String, Integer> cap : properties.maxPerType().entrySet()) {
+            int byType = notificationStore.evictOldestOfType(cap.getKey(), cap.getValue(), batch);
+            evictedByType.add(byType);
+            evicted += byType;
+        }
+        if (properties.maxCount() > 0) {
+            int byCount = notificationStore.evictOldest(properties.maxCount(), batch);
+            evictedByCount.add(byCount);
+            evicted += byCount;
+        }
+        return evicted;
+    }
+
+    public long getEvictedByAge() {
+        return evictedByAge.sum();
+    }
+
+    public long getEvictedByCount() {
+        return evictedByCount.sum();
+    }
+
+    public long getEvictedByType() {
+        return evictedByType.sum();
+    }
+}
@@ -1,28 +1,91 @@
 package com.example.notification.service;
 
+import com.example.notification.dto.IncomingNotification;
+import com.example.notification.dto.NotificationPage;
 import com.example.notification.dto.NotificationRequest;
 import com.example.notification.dto.NotificationResponse;
+import com.example.notification.dto.NotificationStats;
+import com.example.notification.exception.IdempotencyKeyInProgressException;
+import com.example.notification.exception.InvalidRequestException;
+import com.example.notification.feed.FeedSink;
+import com.example.notification.feed.FeedSubscription;
+import com.example.notification.feed.NotificationFeed;
 import com.example.notification.exception.NotificationNotFoundException;
 import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationQuery;
+import com.example.notification.repository.NotificationSlice;
 import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.RollupInterval;
+import com.example.notification.repository.StoredNotification;
+import com.example.notification.repository.TextQuery;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class NotificationService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_SEARCH_LIMIT = 50;
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    public static final String IDEMPOTENCY_KEY_TOO_LONG =
+            "Idempotency key must not be longer than " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters";
+    public static final String IDEMPOTENCY_KEY_IN_PROGRESS =
+            "Notification with this idempotency key is still being stored";
+    /**
+     * id в ответе {@link #createNotificationsFromGrpc} для уведомления, не сохранённого
+     * из-за слишком длинного ключа идемпотентности.
+     */
+    public static final long REJECTED_ID = -1;
+    /**
+     * id в ответе {@link #createNotificationsFromGrpc} для уведомления, ключ которого
+     * так и не освободил другой запрос.
+     */
+    public static final long IN_PROGRESS_ID = -2;
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final NotificationStore notificationStore;
+    private final NotificationFeed notificationFeed;
+    private final IdempotencyCache idempotencyCache;
 
     public NotificationService(NotificationStore notificationStore) {
+        this(notificationStore, null);
+    }
+
+    public NotificationService(NotificationStore notificationStore, NotificationFeed notificationFeed) {
+        this(notificationStore, notificationFeed, new IdempotencyCache());
+    }
+
+    /**
+     * @param notificationFeed лента новых уведомлений; null — подписки не поддерживаются
+     * @param idempotencyCache ключи идемпотентности приёма по REST и gRPC
+     */
+    @Autowired
+    public NotificationService(NotificationStore notificationStore, NotificationFeed notificationFeed,
+                               IdempotencyCache idempotencyCache) {
         this.notificationStore = notificationStore;
+        this.notificationFeed = notificationFeed;
+        this.idempotencyCache = idempotencyCache;
     }
 
     public List<NotificationResponse> getAllNotifications() {
         return notificationStore.findAll().stream()
-                .sorted(Comparator.comparing(Notification::getCreatedAt))
                 .map(this::mapToResponse)
                 .toList();
     }
@@ -30,13 +93,151 @@ public class NotificationService {
     public List<NotificationResponse> getNotificationsFromLastDays(long days) {
         LocalDateTime threshold = LocalDateTime.now().minusDays(days);
         return notificationStore.findSince(threshold).stream()
-                .sorted(Comparator.comparing(Notification::getCreatedAt))
                 .map(this::mapToResponse)
                 .toList();
     }
 
+    /**
+     * Страница уведомлений по курсору. Без limit возвращает все подходящие уведомления.
+     */
+    public NotificationPage getNotificationsPage(LocalDateTime from, LocalDateTime to, Set<String> types,
+                                                 String after, Integer limit) {
+        return findPage(null, from, to, types, after, limit);
+    }
+
+    public NotificationPage getRecentNotificationsPage(long days, Set<String> types, String after, Integer limit) {
+        return getNotificationsPage(LocalDateTime.now().minusDays(days), null, types, after, limit);
+    }
+
+    /**
+     * Страница ящика одного пользователя; читается только его раздел хранилища.
+     */
+    public NotificationPage getUserNotificationsPage(String userId, LocalDateTime from, LocalDateTime to,
+                                                     Set<String> types, String after, Integer limit) {
+        return findPage(userId, from, to, types, after, limit);
+    }
+
+    private NotificationPage findPage(String userId, LocalDateTime from, LocalDateTime to, Set<String> types,
+                                      String after, Integer limit) {
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidRequestException("from must be before to");
+        }
+
+        NotificationQuery query = new NotificationQuery(
+                userId, from, to, types, NotificationCursor.decode(after), limit != null ? limit : Integer.MAX_VALUE);
+        return toPage(notificationStore.findPage(query));
+    }
+
+    /**
+     * Все уведомления, подходящие под фильтры, в порядке createdAt для потоковой выгрузки.
+     * Поток ленивый: хранилище обходится по мере чтения, без промежуточного списка.
+     * Фильтры проверяются сразу, до начала обхода.
+     */
+    public Stream<NotificationResponse> exportNotifications(LocalDateTime from, LocalDateTime to, Set<String> types) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidRequestException("from must be before to");
+        }
+        NotificationQuery query = new NotificationQuery(null, from, to, types, null, Integer.MAX_VALUE);
+        Spliterator<StoredNotification> scan = Spliterators.spliteratorUnknownSize(
+                notificationStore.iterate(query), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(scan, false).map(this::mapToResponse);
+    }
+
+    /**
+     * Полнотекстовый поиск от новых уведомлений к старым. Курсор after ведёт к более старым.
+     */
+    public NotificationPage searchNotifications(String text, String after, Integer limit) {
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (!notificationStore.isSearchEnabled()) {
+            throw new InvalidRequestException("Full-text search is disabled");
+        }
+        NotificationQuery.Position before = NotificationCursor.decode(after);
+        try {
+            TextQuery query = TextQuery.parse(text);
+            return toPage(notificationStore.search(query, before, limit != null ? limit : DEFAULT_SEARCH_LIMIT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+    }
+
+    private NotificationPage toPage(NotificationSlice slice) {
+        List<NotificationResponse> items = slice.items().stream()
+                .map(this::mapToResponse)
+                .toList();
+        String nextCursor = null;
+        if (slice.hasMore()) {
+            StoredNotification last = slice.items().get(slice.items().size() - 1);
+            nextCursor = NotificationCursor.encode(
+                    new NotificationQuery.Position(last.getCreatedAtMillis(), last.getId()));
+        }
+        return new NotificationPage(items, nextCursor);
+    }
+
+    /**
+     * Число уведомлений по уровням в корзинах по минутам или часам. Считается по счётчикам
+     * хранилища, без обхода уведомлений. Период выравнивается по границам корзин: from вниз, to вверх.
+     * Без to период заканчивается текущей корзиной, без from — начинается за час (минуты) или сутки (часы) до to.
+     *
+     * @param interval minute или hour, без учёта регистра; null — minute
+     * @param types    только эти уровни; null — все
+     */
+    public NotificationStats getStats(String interval, LocalDateTime from, LocalDateTime to, Set<String> types) {
+        RollupInterval resolution = parseInterval(interval);
+        long width = resolution.widthMillis();
+        long toMillis = to != null ? StoredNotification.toMillis(to)
+                : StoredNotification.toMillis(LocalDateTime.now()) + 1;
+        toMillis = Math.ceilDiv(toMillis, width) * width;
+        long fromMillis = from != null ? StoredNotification.toMillis(from)
+                : toMillis - (resolution == RollupInterval.MINUTE ? Duration.ofHours(1) : Duration.ofDays(1)).toMillis();
+        fromMillis = Math.floorDiv(fromMillis, width) * width;
+        if (fromMillis >= toMillis) {
+            throw new InvalidRequestException("from must be before to");
+        }
+        LocalDateTime alignedFrom = StoredNotification.fromMillis(fromMillis);
+        LocalDateTime alignedTo = StoredNotification.fromMillis(toMillis);
+
+        Map<String, Long> totals = new TreeMap<>();
+        Map<Long, Map<String, Long>> byStart = new TreeMap<>();
+        notificationStore.countByLevel(resolution, alignedFrom, alignedTo, types).forEach((level, counts) ->
+                counts.forEach((start, count) -> {
+                    totals.merge(level, count, Long::sum);
+                    byStart.computeIfAbsent(start, key -> new TreeMap<>()).put(level, count);
+                }));
+        List<NotificationStats.Bucket> buckets = new ArrayList<>(byStart.size());
+        byStart.forEach((start, counts) ->
+                buckets.add(new NotificationStats.Bucket(StoredNotification.fromMillis(start), counts)));
+        return new NotificationStats(resolution, alignedFrom, alignedTo, totals, buckets);
+    }
+
+    private static RollupInterval parseInterval(String interval) {
+        if (interval == null) {
+            return RollupInterval.MINUTE;
+        }
+        try {
+            return RollupInterval.valueOf(interval.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("interval must be minute or hour");
+        }
+    }
+
+    /**
+     * Версия содержимого хранилища для условных GET, см. {@link NotificationStore#version()}.
+     */
+    public long version() {
+        return notificationStore.version();
+    }
+
+    public long lastModified() {
+        return notificationStore.lastModified();
+    }
+
     public NotificationResponse getNotificationById(Long id) {
-        Notification notification = notificationStore.findById(id);
+        StoredNotification notification = notificationStore.findById(id);
         if (notification == null) {
             throw new NotificationNotFoundException("Notification not found with id: " + id);
         }
@@ -44,28 +245,37 @@ public class NotificationService {
     }
 
     public NotificationResponse createNotification(NotificationRequest request) {
-        Notification notification = new Notification();
-        notification.setTitle(request.getTitle());
-        notification.setMessage(request.getMessage());
-        notification.setType(request.getType() != null ? request.getType() : "INFO");
-        notification.setCreatedAt(LocalDateTime.now());
+        return createNotification(request, null);
+    }
 
-        return mapToResponse(notificationStore.save(notification));
+    /**
+     * @param idempotencyKey ключ повторов: если уведомление с ним уже сохранено, возвращается оно,
+     *                       а новое не сохраняется; null или пустой — без проверки
+     * @throws NotificationNotFoundException если уведомление с этим ключом сохранено, но уже удалено
+     */
+    public NotificationResponse createNotification(NotificationRequest request, String idempotencyKey) {
+        return mapToResponse(saveOnce(idempotencyKey, fromRequest(request, LocalDateTime.now())));
     }
 
     public NotificationResponse updateNotification(Long id, NotificationRequest request) {
-        Notification existing = notificationStore.findById(id);
+        StoredNotification existing = notificationStore.findById(id);
         if (existing == null) {
             throw new NotificationNotFoundException("Notification not found with id: " + id);
         }
 
-        existing.setTitle(request.getTitle());
-        existing.setMessage(request.getMessage());
-        if (request.getType() != null) {
-            existing.setType(request.getType());
-        }
+        Notification updated = new Notification(
+                existing.getId(),
+                request.getTitle(),
+                request.getMessage(),
+                request.getType() != null ? request.getType() : existing.getType(),
+                existing.getCreatedAt());
+        updated.setUserId(existing.getUserId());
 
-        return mapToResponse(existing);
+        StoredNotification stored = notificationStore.update(updated);
+        if (stored == null) {
+            throw new NotificationNotFoundException("Notification not found with id: " + id);
+        }
+        return mapToResponse(stored);
     }
 
     public void deleteNotification(Long id) {
@@ -75,23 +285,369 @@ public class NotificationService {
         }
     }
 
-    public NotificationResponse createNotificationFromGrpc(String level, String content, LocalDateTime date) {
+    /**
+     * Сохраняет пачку уже проверенных запросов одним вызовом хранилища: одна запись в журнал,
+     * одно ожидание fsync и одно изменение версии на пачку.
+     *
+     * @return созданные уведомления в порядке запросов
+     */
+    public List<NotificationResponse> createNotifications(List<NotificationRequest> requests) {
+        checkBatchSize(requests.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = new ArrayList<>(requests.size());
+        for (NotificationRequest request : requests) {
+            notifications.add(fromRequest(request, now));
+        }
+        List<StoredNotification> stored = notificationStore.saveAll(notifications);
+        List<NotificationResponse> responses = new ArrayList<>(stored.size());
+        for (StoredNotification notification : stored) {
+            responses.add(mapToResponse(notification));
+        }
+        return responses;
+    }
+
+    /**
+     * Удаляет пачку уведомлений по id одним вызовом хранилища.
+     *
+     * @return для каждого id, было ли уведомление удалено; null и повторы id — false
+     */
+    public boolean[] deleteNotifications(List<Long> ids) {
+        checkBatchSize(ids.size());
+        long[] existing = new long[ids.size()];
+        int[] positions = new int[ids.size()];
+        int count = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) != null) {
+                positions[count] = i;
+                existing[count++] = ids.get(i);
+            }
+        }
+        boolean[] removed = notificationStore.removeAll(Arrays.copyOf(existing, count));
+        boolean[] result = new boolean[ids.size()];
+        for (int i = 0; i < count; i++) {
+            result[positions[i]] = removed[i];
+        }
+        return result;
+    }
+
+    /**
+     * Удаляет все уведомления периода и типов, пачками по {@link #MAX_BATCH_SIZE}, чтобы
+     * не держать блокировки хранилища на всё время удаления. Хотя бы один фильтр обязателен.
+     * Период сверху ограничивается самым поздним createdAt на момент вызова, иначе
+     * при непрерывном приёме обход догонял бы новые уведомления без конца.
+     *
+     * @return число удалённых уведомлений
+     */
+    public int deleteNotificationsMatching(LocalDateTime from, LocalDateTime to, Set<String> types) {
+        if (from == null && to == null && (types == null || types.isEmpty())) {
+            throw new InvalidRequestException("At least one of from, to or types is required");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidRequestException("from must be before to");
+        }
+        LocalDateTime newest = notificationStore.newestCreatedAt();
+        if (newest == null) {
+            return 0;
+        }
+        // to — исключающая граница, самое позднее уведомление должно в неё попасть
+        LocalDateTime upper = newest.plusNanos(1_000_000);
+        if (to == null || to.isAfter(upper)) {
+            to = upper;
+        }
+        if (from != null && !from.isBefore(to)) {
+            return 0;
+        }
+        Iterator<StoredNotification> matching = notificationStore.iterate(
+                new NotificationQuery(null, from, to, types, null, Integer.MAX_VALUE));
+        long[] batch = new long[MAX_BATCH_SIZE];
+        int deleted = 0;
+        while (matching.hasNext()) {
+            int size = 0;
+            while (size < batch.length && matching.hasNext()) {
+                batch[size++] = matching.next().getId();
+            }
+            for (boolean removed : notificationStore.removeAll(Arrays.copyOf(batch, size))) {
+                if (removed) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static void checkBatchSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException("Batch must not contain more than " + MAX_BATCH_SIZE + " items");
+        }
+    }
+
+    public NotificationResponse createNotificationFromGrpc(String userId, String level, String content,
+                                                           LocalDateTime date) {
+        return createNotificationFromGrpc(new IncomingNotification(userId, level, content, date));
+    }
+
+    /**
+     * Сохраняет уведомление, принятое по gRPC; повтор с тем же ключом идемпотентности
+     * возвращает уже сохранённое, см. {@link #createNotification(NotificationRequest, String)}.
+     */
+    public NotificationResponse createNotificationFromGrpc(IncomingNotification incoming) {
+        return mapToResponse(saveOnce(incoming.idempotencyKey(), fromGrpc(incoming)));
+    }
+
+    /**
+     * Сохраняет пачку уведомлений из потока одним вызовом хранилища, без построения ответов.
+     * Для уведомлений с уже известным ключом идемпотентности возвращается id первого сохранения.
+     * Уведомление со слишком длинным ключом не сохраняется и получает {@link #REJECTED_ID},
+     * с ключом, который не дождался другого запроса, — {@link #IN_PROGRESS_ID};
+     * остальная пачка сохраняется как обычно.
+     *
+     * @return id сохранённых уведомлений в порядке пачки
+     */
+    public long[] createNotificationsFromGrpc(List<IncomingNotification> incoming) {
+        long[] ids = new long[incoming.size()];
+        List<Notification> notifications = new ArrayList<>(incoming.size());
+        int[] positions = new int[incoming.size()];
+        String[] keys = null;
+        for (int i = 0; i < incoming.size(); i++) {
+            String key = incoming.get(i).idempotencyKey();
+            if (idempotencyKeyTooLong(key)) {
+                ids[i] = REJECTED_ID;
+                continue;
+            }
+            key = normalizeIdempotencyKey(key);
+            if (key != null) {
+                if (keys == null) {
+                    keys = new String[incoming.size()];
+                }
+                keys[notifications.size()] = key;
+            }
+            positions[notifications.size()] = i;
+            notifications.add(fromGrpc(incoming.get(i)));
+        }
+        if (notifications.isEmpty()) {
+            return ids;
+        }
+        long[] saved;
+        if (keys != null) {
+            saved = saveAllOnce(notifications, keys);
+        } else {
+            List<StoredNotification> stored = notificationStore.saveAll(notifications);
+            saved = new long[stored.size()];
+            for (int j = 0; j < saved.length; j++) {
+                saved[j] = stored.get(j).getId();
+            }
+        }
+        for (int j = 0; j < saved.length; j++) {
+            ids[positions[j]] = saved[j];
+        }
+        return ids;
+    }
+
+    /**
+     * Подписывает получателя на уведомления, сохранённые после этого вызова.
+     *
+     * @param userId только уведомления этого получателя; null или пустой — все
+     * @param types  только уведомления этих типов; null — любые
+     */
+    public FeedSubscription subscribe(String userId, Set<String> types, FeedSink<NotificationResponse> sink) {
+        if (notificationFeed == null) {
+            throw new IllegalStateException("Notification feed is not configured");
+        }
+        String user = normalizeUserId(userId);
+        Predicate<StoredNotification> filter = notification ->
+                (user == null || user.equals(notification.getUserId()))
+                        && (types == null || types.contains(notification.getType()));
+        return notificationFeed.subscribe(filter, new FeedSink<>() {
+            @Override
+            public boolean offer(StoredNotification notification) {
+                return sink.offer(mapToResponse(notification));
+            }
+
+            @Override
+            public void lagged(long missed) {
+                sink.lagged(missed);
+            }
+
+            @Override
+            public void closed(String reason) {
+                sink.closed(reason);
+            }
+        });
+    }
+
+    private static Notification fromRequest(NotificationRequest request, LocalDateTime createdAt) {
+        Notification notification = new Notification();
+        notification.setTitle(request.getTitle());
+        notification.setMessage(request.getMessage());
+        notification.setType(request.getType() != null ? request.getType() : "INFO");
+        notification.setUserId(normalizeUserId(request.getUserId()));
+        notification.setCreatedAt(createdAt);
+        return notification;
+    }
+
+    private static Notification fromGrpc(IncomingNotification incoming) {
+        String level = incoming.level() != null ? incoming.level() : "INFO";
         Notification notification = new Notification();
-        notification.setTitle(level != null ? level : "INFO");
-        notification.setMessage(content);
-        notification.setType(level != null ? level : "INFO");
-        notification.setCreatedAt(date != null ? date : LocalDateTime.now());
+        notification.setUserId(normalizeUserId(incoming.userId()));
+        notification.setTitle(level);
+        notification.setMessage(incoming.content());
+        notification.setType(level);
+        notification.setCreatedAt(incoming.date() != null ? incoming.date() : LocalDateTime.now());
+        return notification;
+    }
 
-        return mapToResponse(notificationStore.save(notification));
+    private StoredNotification saveOnce(String idempotencyKey, Notification notification) {
+        String key = normalizeIdempotencyKey(idempotencyKey);
+        if (key == null) {
+            return notificationStore.save(notification);
+        }
+        long id = idempotencyCache.claimOrWait(key);
+        if (id == IdempotencyCache.CLAIMED) {
+            return saveClaimed(key, notification);
+        }
+        if (id == IdempotencyCache.TIMED_OUT) {
+            throw new IdempotencyKeyInProgressException(IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+        StoredNotification original = notificationStore.findById(id);
+        if (original == null) {
+            throw new NotificationNotFoundException(
+                    "Notification " + id + " stored with idempotency key '" + key + "' was deleted");
+        }
+        return original;
     }
 
-    private NotificationResponse mapToResponse(Notification notification) {
+    /**
+     * Пачка с ключами идемпотентности. Свободные ключи захватываются без ожидания,
+     * и их уведомления вместе с уведомлениями без ключа сохраняются одним saveAll.
+     * Ключи, которые в это время сохраняет другой запрос, дожидаются уже после этого,
+     * чтобы две пачки не ждали ключей друг друга; повтор ключа внутри пачки получает тот же id.
+     */
+    private long[] saveAllOnce(List<Notification> notifications, String[] keys) {
+        int size = notifications.size();
+        long[] ids = new long[size];
+        int[] duplicateOf = new int[size];
+        boolean[] claimed = new boolean[size];
+        boolean[] pending = new boolean[size];
+        Map<String, Integer> firstByKey = new HashMap<>();
+        List<Notification> toSave = new ArrayList<>(size);
+        int[] savedAt = new int[size];
+        for (int i = 0; i < size; i++) {
+            duplicateOf[i] = -1;
+            String key = keys[i];
+            if (key != null) {
+                Integer first = firstByKey.putIfAbsent(key, i);
+                if (first != null) {
+                    duplicateOf[i] = first;
+                    continue;
+                }
+                long id = idempotencyCache.claim(key);
+                if (id == IdempotencyCache.PENDING) {
+                    pending[i] = true;
+                    continue;
+                }
+                if (id != IdempotencyCache.CLAIMED) {
+                    ids[i] = id;
+                    continue;
+                }
+                claimed[i] = true;
+            }
+            savedAt[toSave.size()] = i;
+            toSave.add(notifications.get(i));
+        }
+
+        List<StoredNotification> stored;
+        try {
+            stored = notificationStore.saveAll(toSave);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < size; i++) {
+                if (claimed[i]) {
+                    idempotencyCache.release(keys[i]);
+                }
+            }
+            throw e;
+        }
+        for (int j = 0; j < stored.size(); j++) {
+            int i = savedAt[j];
+            ids[i] = stored.get(j).getId();
+            if (claimed[i]) {
+                idempotencyCache.complete(keys[i], ids[i]);
+            }
+        }
+        boolean timedOut = false;
+        for (int i = 0; i < size; i++) {
+            if (pending[i]) {
+                // после первого неудачного ожидания пачка больше не ждёт: иначе по pendingWait на ключ
+                long id = timedOut ? idempotencyCache.claim(keys[i]) : idempotencyCache.claimOrWait(keys[i]);
+                if (id == IdempotencyCache.PENDING || id == IdempotencyCache.TIMED_OUT) {
+                    timedOut = true;
+                    ids[i] = IN_PROGRESS_ID;
+                } else {
+                    ids[i] = id != IdempotencyCache.CLAIMED ? id : saveClaimed(keys[i], notifications.get(i)).getId();
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (duplicateOf[i] >= 0) {
+                ids[i] = ids[duplicateOf[i]];
+            }
+        }
+        return ids;
+    }
+
+    private StoredNotification saveClaimed(String key, Notification notification) {
+        StoredNotification saved;
+        try {
+            saved = notificationStore.save(notification);
+        } catch (RuntimeException e) {
+            idempotencyCache.release(key);
+            throw e;
+        }
+        idempotencyCache.complete(key, saved.getId());
+        return saved;
+    }
+
+    private static String normalizeIdempotencyKey(String key) {
+        // proto3 отдаёт пустую строку вместо отсутствующего ключа
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        if (idempotencyKeyTooLong(key)) {
+            throw new InvalidRequestException(IDEMPOTENCY_KEY_TOO_LONG);
+        }
+        return key;
+    }
+
+    /**
+     * @return причина, по которой уведомление из {@link #createNotificationsFromGrpc} не сохранено,
+     * или null, если id — id сохранённого уведомления
+     */
+    public static String rejectionReason(long id) {
+        if (id == REJECTED_ID) {
+            return IDEMPOTENCY_KEY_TOO_LONG;
+        }
+        if (id == IN_PROGRESS_ID) {
+            return IDEMPOTENCY_KEY_IN_PROGRESS;
+        }
+        return null;
+    }
+
+    private static boolean idempotencyKeyTooLong(String key) {
+        return key != null && key.length() > MAX_IDEMPOTENCY_KEY_LENGTH;
+    }
+
+    private NotificationResponse mapToResponse(StoredNotification notification) {
         NotificationResponse response = new NotificationResponse();
         response.setId(notification.getId());
         response.setTitle(notification.getTitle());
         response.setMessage(notification.getMessage());
         response.setType(notification.getType());
         response.setCreatedAt(notification.getCreatedAt());
+        response.setUserId(notification.getUserId());
         return response;
     }
+
+    private static String normalizeUserId(String userId) {
+        // proto3 отдаёт пустую строку вместо отсутствующего значения
+        return userId == null || userId.isBlank() ? null : userId;
+    }
 }
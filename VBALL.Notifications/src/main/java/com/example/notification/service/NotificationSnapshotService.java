@@ -0,0 +1,76 @@
+package com.example.notification.service;
+
+import com.example.notification.config.PersistenceProperties;
+import com.example.notification.persistence.SnapshotFile;
+import com.example.notification.persistence.WriteAheadLog;
+import com.example.notification.repository.NotificationStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Периодические снимки хранилища и усечение покрытых ими сегментов журнала.
+ * Снимок пишется параллельно с приёмом уведомлений; при старте загружается
+ * снимок и воспроизводится только хвост журнала после него.
+ */
+@Service
+@ConditionalOnProperty(prefix = "notification.persistence", name = "enabled", havingValue = "true")
+public class NotificationSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationSnapshotService.class);
+
+    private final NotificationStore notificationStore;
+    private final WriteAheadLog writeAheadLog;
+    private final PersistenceProperties properties;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private volatile long lastSnapshotLsn;
+
+    public NotificationSnapshotService(NotificationStore notificationStore, WriteAheadLog writeAheadLog,
+                                       PersistenceProperties properties) {
+        this.notificationStore = notificationStore;
+        this.writeAheadLog = writeAheadLog;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.persistence.snapshot-interval:PT10M}")
+    public void snapshotScheduled() {
+        if (writeAheadLog.lastLsn() - lastSnapshotLsn < properties.snapshotMinRecords()) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException e) {
+            logger.error("Failed to write notification snapshot", e);
+        }
+    }
+
+    /**
+     * Пишет снимок, удаляет покрытые им сегменты журнала и предыдущие снимки.
+     */
+    public Path snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long started = System.nanoTime();
+            long coveredLsn = writeAheadLog.checkpointLsn();
+            long nextId = notificationStore.nextId();
+
+            Path file = SnapshotFile.write(writeAheadLog.directory(), coveredLsn, nextId,
+                    notificationStore.timeOrderedView());
+            int truncated = writeAheadLog.truncateThrough(coveredLsn);
+            SnapshotFile.deleteOlderThan(writeAheadLog.directory(), file);
+            lastSnapshotLsn = coveredLsn;
+
+            logger.info("Snapshot {} written in {} ms, {} log segments truncated",
+                    file.getFileName(), (System.nanoTime() - started) / 1_000_000, truncated);
+            return file;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+}
@@ -1,12 +1,47 @@
 package com.example.notification;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
 class NotificationApiServiceApplicationTests {
 
+    @Autowired
+    private MockMvc mockMvc;
+
     @Test
     void contextLoads() {
     }
+
+    @Test
+    void prometheus_endpoint_exposes_store_and_rest_metrics() throws Exception {
+        mockMvc.perform(post("/api/notifications")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Матч\",\"message\":\"Перенос\",\"type\":\"INFO\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/notifications").param("limit", "10"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("notification_store_size ")))
+                .andExpect(content().string(containsString(
+                        "notification_store_operation_seconds_count{operation=\"save\"")))
+                .andExpect(content().string(containsString(
+                        "http_server_response_size_bytes_count{uri=\"/api/notifications\"")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")));
+    }
 }
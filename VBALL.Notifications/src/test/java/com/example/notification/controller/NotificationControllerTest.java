@@ -1,6 +1,8 @@
 package com.example.notification.controller;
 
 import com.example.notification.dto.NotificationRequest;
+import com.example.notification.feed.NotificationFeed;
+import com.example.notification.feed.SlowSubscriberPolicy;
 import com.example.notification.service.NotificationService;
 import com.example.notification.repository.NotificationStore;
 import org.junit.jupiter.api.Test;
@@ -9,13 +11,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-@WebMvcTest(NotificationController.class)
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+
+@WebMvcTest({NotificationController.class, UserNotificationController.class})
 @Import(NotificationControllerTest.TestConfig.class)
 class NotificationControllerTest {
 
@@ -37,6 +47,69 @@ class NotificationControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(1));
     }
 
+    @Test
+    void getAllNotifications_with_limit_returns_page_and_next_cursor() throws Exception {
+        notificationService.createNotification(new NotificationRequest("a", "m", "INFO"));
+        notificationService.createNotification(new NotificationRequest("b", "m", "INFO"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications").param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.header().exists(NotificationController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getAllNotifications_with_bad_cursor_returns_bad_request() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications").param("after", "%%%"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void searchNotifications_returns_matches_newest_first() throws Exception {
+        notificationService.createNotification(new NotificationRequest("Match", "Spartak vs Dynamo", "INFO"));
+        notificationService.createNotification(new NotificationRequest("Match", "Dynamo wins", "INFO"));
+        notificationService.createNotification(new NotificationRequest("Training", "Cancelled", "INFO"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications/search").param("q", "dyn*").param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].message").value("Dynamo wins"))
+                .andExpect(MockMvcResultMatchers.header().exists(NotificationController.NEXT_CURSOR_HEADER));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications/search").param("q", "d*"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void streamNotifications_pushes_matching_notifications_as_events() throws Exception {
+        var result = mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications/stream").param("type", "ERROR"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        notificationService.createNotification(new NotificationRequest("skipped", "m", "INFO"));
+        notificationService.createNotification(new NotificationRequest("alert", "m", "ERROR"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!result.getResponse().getContentAsString().contains("alert") && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        String body = result.getResponse().getContentAsString();
+        assertThat(body).contains("event:notification").contains("\"title\":\"alert\"").doesNotContain("skipped");
+    }
+
+    @Test
+    void getUserNotifications_returns_only_users_inbox() throws Exception {
+        var request = new NotificationRequest("personal", "m", "INFO");
+        request.setUserId("user-1");
+        notificationService.createNotification(request);
+        notificationService.createNotification(new NotificationRequest("broadcast", "m", "INFO"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/users/user-1/notifications"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].userId").value("user-1"));
+    }
+
     @Test
     void createNotification_returns_created() throws Exception {
         var request = new NotificationRequest("hello", "world", null);
@@ -48,6 +121,24 @@ class NotificationControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id").isNumber());
     }
 
+    @Test
+    void createNotification_with_repeated_idempotency_key_returns_same_notification() throws Exception {
+        var request = objectMapper.writeValueAsString(new NotificationRequest("once", "world", null));
+        var first = mockMvc.perform(MockMvcRequestBuilders.post("/api/notifications")
+                        .header(NotificationController.IDEMPOTENCY_KEY_HEADER, "rest-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/notifications")
+                        .header(NotificationController.IDEMPOTENCY_KEY_HEADER, "rest-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(objectMapper.readTree(first).get("id").asLong()));
+    }
+
     @Test
     void updateNotification_returns_updated() throws Exception {
         var request = new NotificationRequest("up", "msg", "WARN");
@@ -68,6 +159,130 @@ class NotificationControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isNoContent());
     }
 
+    @Test
+    void getAllNotifications_answers_matching_etag_with_not_modified_until_next_write() throws Exception {
+        notificationService.createNotification(new NotificationRequest("polled", "m", "INFO"));
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        notificationService.createNotification(new NotificationRequest("fresh", "m", "INFO"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.title == 'fresh')]").exists());
+    }
+
+    @Test
+    void getRecentNotifications_repeated_page_keeps_cursor_and_etag() throws Exception {
+        notificationService.createNotification(new NotificationRequest("r1", "m", "INFO"));
+        notificationService.createNotification(new NotificationRequest("r2", "m", "INFO"));
+
+        var first = mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications/recent").param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse();
+        var second = mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications/recent").param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse();
+
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo(first.getHeader(HttpHeaders.ETAG));
+        assertThat(second.getHeader(NotificationController.NEXT_CURSOR_HEADER))
+                .isNotNull()
+                .isEqualTo(first.getHeader(NotificationController.NEXT_CURSOR_HEADER));
+        assertThat(second.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(second.getHeader(HttpHeaders.LAST_MODIFIED)).isNull();
+    }
+
+    @Test
+    void exportNotifications_streams_ndjson_lines() throws Exception {
+        notificationService.createNotification(new NotificationRequest("first", "m", "AUDIT"));
+        notificationService.createNotification(new NotificationRequest("second", "m", "AUDIT"));
+        notificationService.createNotification(new NotificationRequest("other", "m", "INFO"));
+
+        var response = mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications/export").param("type", "AUDIT"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse();
+
+        String body = response.getContentAsString();
+        assertThat(body).endsWith("\n");
+        assertThat(body.lines().map(line -> {
+            try {
+                return objectMapper.readTree(line).get("title").asText();
+            } catch (Exception e) {
+                throw new AssertionError(line, e);
+            }
+        })).containsExactly("first", "second");
+    }
+
+    @Test
+    void getStats_returns_counts_per_level() throws Exception {
+        notificationService.createNotification(new NotificationRequest("s", "m", "STATS"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications/stats").param("type", "STATS"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.interval").value("MINUTE"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totals.STATS").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.buckets[0].counts.STATS").value(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/notifications/stats").param("interval", "day"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void createNotifications_batch_reports_each_item() throws Exception {
+        var valid = new NotificationRequest("ok", "m", "BATCH");
+        var invalid = new NotificationRequest("", "m", "BATCH");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/notifications/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(valid, invalid, valid))))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.succeeded").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.failed").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].status").value(201))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].status").value(400))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].error").value("title: Title is required"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[2].index").value(2));
+        assertThat(notificationService.getNotificationsPage(null, null, Set.of("BATCH"), null, null).items())
+                .hasSize(2);
+    }
+
+    @Test
+    void deleteNotifications_batch_by_ids_and_by_filter() throws Exception {
+        var created = notificationService.createNotifications(List.of(
+                new NotificationRequest("x", "m", "PURGE"), new NotificationRequest("y", "m", "PURGE"),
+                new NotificationRequest("z", "m", "PURGE")));
+        long id = created.get(0).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/notifications/batch/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + id + "," + id + "]}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.succeeded").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].status").value(204))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].status").value(404));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/notifications/batch/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"types\":[\"PURGE\"]}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.succeeded").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(0));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/notifications/batch/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1],\"types\":[\"PURGE\"]}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/notifications/batch/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     static class TestConfig {
         @Bean
         @Primary
@@ -75,10 +290,17 @@ class NotificationControllerTest {
             return new NotificationStore();
         }
 
+        @Bean(destroyMethod = "close")
+        NotificationFeed notificationFeed(NotificationStore store) {
+            var feed = new NotificationFeed(1024, SlowSubscriberPolicy.SKIP);
+            store.addSaveListener(feed::publish);
+            return feed;
+        }
+
         @Bean
         @Primary
-        NotificationService notificationService(NotificationStore store) {
-            return new NotificationService(store);
+        NotificationService notificationService(NotificationStore store, NotificationFeed feed) {
+            return new NotificationService(store, feed);
         }
     }
 }
@@ -0,0 +1,52 @@
+package com.example.notification.controller;
+
+import com.example.notification.dto.NotificationPage;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.service.NotificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionedResponseCacheTest {
+
+    private final NotificationService notificationService = new NotificationService(new NotificationStore());
+    private final VersionedResponseCache cache = new VersionedResponseCache(notificationService, new ObjectMapper());
+
+    @Test
+    void matching_etag_is_answered_without_running_the_query_even_when_not_cached() {
+        // заполненный кэш не примет новый ответ, и условный запрос пойдёт мимо кэша
+        for (int i = 0; i < VersionedResponseCache.MAX_ENTRIES; i++) {
+            assertThat(cache.get(request("/filler" + i, null), () -> new NotificationPage(List.of(), null))).isNotNull();
+        }
+        AtomicInteger queries = new AtomicInteger();
+        var first = request("/api/notifications", null);
+        assertThat(cache.get(first, () -> count(queries))).isNotNull();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        var conditional = request("/api/notifications", etag);
+        assertThat(cache.get(conditional, () -> count(queries))).isNull();
+        assertThat(conditional.getResponse().getStatus()).isEqualTo(304);
+        assertThat(queries).hasValue(1);
+    }
+
+    private static NotificationPage count(AtomicInteger queries) {
+        queries.incrementAndGet();
+        return new NotificationPage(List.of(), null);
+    }
+
+    private static ServletWebRequest request(String uri, String ifNoneMatch) {
+        var request = new MockHttpServletRequest("GET", uri);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.notification.feed;
+
+import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationFeedTest {
+
+    private NotificationFeed feed;
+    private NotificationStore store;
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void subscriber_receives_matching_notifications_in_order() throws InterruptedException {
+        open(16, SlowSubscriberPolicy.SKIP);
+        var infoSink = new RecordingSink();
+        var aliceSink = new RecordingSink();
+        feed.subscribe(n -> "INFO".equals(n.getType()), infoSink);
+        feed.subscribe(n -> "alice".equals(n.getUserId()), aliceSink);
+
+        for (int i = 0; i < 6; i++) {
+            store.save(notification("n" + i, i % 2 == 0 ? "INFO" : "ERROR", i < 3 ? "alice" : null));
+        }
+
+        await(() -> infoSink.items.size() == 3 && aliceSink.items.size() == 3);
+        assertThat(infoSink.items).extracting(StoredNotification::getTitle).containsExactly("n0", "n2", "n4");
+        assertThat(aliceSink.items).extracting(StoredNotification::getTitle).containsExactly("n0", "n1", "n2");
+        assertThat(infoSink.missed).isZero();
+    }
+
+    @Test
+    void paused_subscriber_skips_overwritten_notifications_after_resume() throws InterruptedException {
+        open(8, SlowSubscriberPolicy.SKIP);
+        var sink = new RecordingSink();
+        sink.ready = false;
+        var subscription = feed.subscribe(n -> true, sink);
+
+        for (int i = 0; i < 20; i++) {
+            store.save(notification("n" + i, "INFO", null));
+        }
+        sink.ready = true;
+        subscription.resume();
+
+        await(() -> sink.items.size() == 8);
+        assertThat(sink.missed).isEqualTo(12);
+        assertThat(subscription.missed()).isEqualTo(12);
+        assertThat(sink.items).extracting(StoredNotification::getTitle).startsWith("n12").endsWith("n19");
+    }
+
+    @Test
+    void lagging_subscriber_is_disconnected_under_disconnect_policy() throws InterruptedException {
+        open(8, SlowSubscriberPolicy.DISCONNECT);
+        var sink = new RecordingSink();
+        sink.ready = false;
+        var subscription = feed.subscribe(n -> true, sink);
+
+        for (int i = 0; i < 20; i++) {
+            store.save(notification("n" + i, "INFO", null));
+        }
+        sink.ready = true;
+        subscription.resume();
+
+        await(() -> sink.closedReason != null);
+        assertThat(sink.items).isEmpty();
+        assertThat(subscription.isCancelled()).isTrue();
+        assertThat(feed.subscriberCount()).isZero();
+    }
+
+    @Test
+    void blocked_subscriber_does_not_block_saves() throws InterruptedException {
+        open(1024, SlowSubscriberPolicy.SKIP);
+        var release = new CountDownLatch(1);
+        var blocked = new RecordingSink() {
+            @Override
+            public boolean offer(StoredNotification item) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.offer(item);
+            }
+        };
+        var fast = new RecordingSink();
+        feed.subscribe(n -> true, blocked);
+        feed.subscribe(n -> true, fast);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 50_000; i++) {
+            store.save(notification("n" + i, "INFO", null));
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        await(() -> fast.items.size() + fast.missed == 50_000);
+
+        release.countDown();
+        await(() -> blocked.missed > 0 && blocked.items.size() + blocked.missed == 50_000);
+    }
+
+    private void open(int capacity, SlowSubscriberPolicy policy) {
+        feed = new NotificationFeed(capacity, policy);
+        store = new NotificationStore();
+        store.addSaveListener(feed::publish);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static Notification notification(String title, String type, String userId) {
+        var n = new Notification();
+        n.setTitle(title);
+        n.setMessage("m");
+        n.setType(type);
+        n.setUserId(userId);
+        return n;
+    }
+
+    private static class RecordingSink implements FeedSink<StoredNotification> {
+        final List<StoredNotification> items = new CopyOnWriteArrayList<>();
+        volatile long missed;
+        volatile String closedReason;
+        volatile boolean ready = true;
+
+        @Override
+        public boolean offer(StoredNotification item) {
+            if (!ready) {
+                return false;
+            }
+            items.add(item);
+            return true;
+        }
+
+        @Override
+        public void lagged(long missed) {
+            this.missed += missed;
+        }
+
+        @Override
+        public void closed(String reason) {
+            closedReason = reason;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.notification.grpc;
+
+import com.example.notification.config.IngestLogProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestLogTest {
+
+    @Test
+    void summary_counts_by_level_and_resets() {
+        var log = new IngestLog(new IngestLogProperties(IngestLogMode.SUMMARY, 0, Duration.ofMinutes(1)));
+
+        log.received(request("info"));
+        log.received(request("INFO"));
+        log.received(request("warning"));
+        log.failed(2);
+
+        assertThat(log.summary())
+                .contains("3 received, 2 failed")
+                .contains("by level {INFO=2, WARNING=1}")
+                .contains("3 log lines suppressed");
+        assertThat(log.summary()).isNull();
+    }
+
+    @Test
+    void sampled_mode_suppresses_lines_over_the_rate() {
+        var log = new IngestLog(new IngestLogProperties(IngestLogMode.SAMPLED, 5, Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 100; i++) {
+            log.received(request("INFO"));
+        }
+
+        // 100 вызовов укладываются в одну-две секунды: пропущено не меньше 100 - 2 * 5
+        assertThat(log.summary()).containsPattern("100 received, 0 failed, .* (9\\d) log lines suppressed");
+    }
+
+    @Test
+    void levels_beyond_limit_are_counted_as_other() {
+        var log = new IngestLog(new IngestLogProperties(IngestLogMode.SUMMARY, 0, Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 40; i++) {
+            log.received(request("L" + i));
+        }
+
+        assertThat(log.summary()).contains("OTHER=8");
+    }
+
+    private static NotificationRequest request(String level) {
+        return NotificationRequest.newBuilder()
+                .setUserId("u1")
+                .setLevel(level)
+                .setContent("Матч перенесён")
+                .setDate("2025-01-01T12:00:00")
+                .build();
+    }
+}
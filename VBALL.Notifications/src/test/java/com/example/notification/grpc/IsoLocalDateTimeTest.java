@@ -0,0 +1,63 @@
+package com.example.notification.grpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IsoLocalDateTimeTest {
+
+    private static final List<String> SAMPLES = List.of(
+            "2025-01-01T12:00", "2025-01-01T12:00:05", "2025-01-01t12:00:05", "2025-01-01T12:00:05.",
+            "2025-01-01T12:00:05.1", "2025-01-01T12:00:05.1234567", "2025-01-01T12:00:05.123456789",
+            "2025-01-01T12:00:05.1234567890", "2024-02-29T00:00", "2025-02-29T00:00", "2025-04-31T00:00",
+            "2025-12-31T23:59:59", "2025-13-01T00:00", "2025-00-10T00:00", "2025-01-00T00:00",
+            "2025-01-01T24:00", "2025-01-01T12:60", "2025-01-01T12:00:60", "0000-01-01T00:00",
+            "2025-01-01", "2025-01-01 12:00", "2025-01-01T12:00Z", "2025-01-01T12:00:05Z",
+            "2025-01-01T12:00:5", "2025-01-01T12:0", "2025-1-01T12:00", "2025-01-01T12:00:05,1",
+            "2025-01-01T12:00:05.-1", "2025-01-01T1a:00", "", "yesterday",
+            "-2025-01-01T00:00", "+2025-01-01T00:00", "+12025-01-01T00:00", "12025-01-01T00:00",
+            "-0000-01-01T00:00", "+00000-01-01T00:00", "+999999999-12-31T00:00", "+1000000000-01-01T00:00",
+            "-0999999999-01-01T00:00", "+12345678901-01-01T00:00", "-025-01-01T00:00");
+
+    @Test
+    void parses_exactly_what_iso_local_date_time_accepts() {
+        for (String sample : SAMPLES) {
+            assertThat(IsoLocalDateTime.parse(sample)).as(sample).isEqualTo(reference(sample));
+        }
+    }
+
+    @Test
+    void agrees_with_iso_local_date_time_on_mutated_dates() {
+        var random = new Random(42);
+        String alphabet = "0123456789-+:.Tt Z";
+        for (int i = 0; i < 100_000; i++) {
+            var text = new StringBuilder(SAMPLES.get(random.nextInt(12)));
+            int edits = 1 + random.nextInt(2);
+            for (int e = 0; e < edits; e++) {
+                int at = random.nextInt(text.length() + 1);
+                char c = alphabet.charAt(random.nextInt(alphabet.length()));
+                switch (random.nextInt(3)) {
+                    case 0 -> text.insert(at, c);
+                    case 1 -> { if (at < text.length()) text.deleteCharAt(at); }
+                    default -> { if (at < text.length()) text.setCharAt(at, c); }
+                }
+            }
+            String sample = text.toString();
+            assertThat(IsoLocalDateTime.parse(sample)).as(sample).isEqualTo(reference(sample));
+        }
+    }
+
+    private static LocalDateTime reference(String text) {
+        try {
+            return LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
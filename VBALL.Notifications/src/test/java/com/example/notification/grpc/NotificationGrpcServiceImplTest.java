@@ -0,0 +1,525 @@
+package com.example.notification.grpc;
+
+import com.example.notification.config.GrpcIngestProperties;
+import com.example.notification.config.IngestLogProperties;
+import com.example.notification.dto.IncomingNotification;
+import com.example.notification.feed.NotificationFeed;
+import com.example.notification.feed.SlowSubscriberPolicy;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.service.NotificationService;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationGrpcServiceImplTest {
+
+    private NotificationService notificationService;
+    private NotificationGrpcServiceImpl grpcService;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = new NotificationService(new NotificationStore());
+        grpcService = new NotificationGrpcServiceImpl(
+                notificationService, new GrpcIngestProperties(3, Duration.ofMillis(20), 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        grpcService.shutdown();
+    }
+
+    @Test
+    void sendNotifications_stores_full_batches_and_remainder_on_completion() throws InterruptedException {
+        var call = new FakeCall<NotificationResponse>();
+        var requests = grpcService.sendNotifications(call);
+
+        for (int i = 0; i < 7; i++) {
+            requests.onNext(request("c" + i));
+        }
+        requests.onCompleted();
+
+        assertThat(call.awaitCompletion()).singleElement().satisfies(r -> {
+            assertThat(r.getSuccess()).isTrue();
+            assertThat(r.getMessage()).isEqualTo("Processed 7 notifications: 7 success, 0 failed");
+        });
+        assertThat(notificationService.getAllNotifications())
+                .extracting(n -> n.getMessage())
+                .containsExactly("c0", "c1", "c2", "c3", "c4", "c5", "c6");
+        assertThat(grpcService.inFlightMessages()).isZero();
+    }
+
+    @Test
+    void concurrent_streams_share_a_single_store_thread() throws InterruptedException {
+        grpcService.shutdown();
+        grpcService = new NotificationGrpcServiceImpl(
+                notificationService, new GrpcIngestProperties(3, Duration.ofMillis(20), 0, 1));
+        assertStreamsStoreEverything(5);
+    }
+
+    @Test
+    void concurrent_streams_store_on_virtual_threads_when_enabled() throws InterruptedException {
+        grpcService.shutdown();
+        grpcService = new NotificationGrpcServiceImpl(
+                notificationService, new GrpcIngestProperties(3, Duration.ofMillis(20), 0),
+                new IngestLogProperties(null, 0, null), new SimpleMeterRegistry(), true);
+        assertStreamsStoreEverything(5);
+    }
+
+    private void assertStreamsStoreEverything(int streams) throws InterruptedException {
+        var calls = new ArrayList<FakeCall<NotificationResponse>>();
+        var requests = new ArrayList<StreamObserver<NotificationRequest>>();
+        for (int s = 0; s < streams; s++) {
+            var call = new FakeCall<NotificationResponse>();
+            calls.add(call);
+            requests.add(grpcService.sendNotifications(call));
+        }
+        for (int i = 0; i < 7; i++) {
+            for (int s = 0; s < streams; s++) {
+                requests.get(s).onNext(request("s" + s + "-" + i));
+            }
+        }
+        requests.forEach(StreamObserver::onCompleted);
+
+        for (var call : calls) {
+            assertThat(call.awaitCompletion()).singleElement()
+                    .satisfies(r -> assertThat(r.getMessage()).isEqualTo("Processed 7 notifications: 7 success, 0 failed"));
+        }
+        assertThat(notificationService.getAllNotifications()).hasSize(7 * streams);
+        assertThat(grpcService.inFlightMessages()).isZero();
+    }
+
+    @Test
+    void sendNotification_retry_with_same_idempotency_key_returns_first_id() {
+        var request = request("retried").toBuilder().setIdempotencyKey("schedule-42").build();
+        var first = new FakeCall<NotificationResponse>();
+        var retry = new FakeCall<NotificationResponse>();
+
+        grpcService.sendNotification(request, first);
+        grpcService.sendNotification(request, retry);
+
+        assertThat(retry.values).singleElement().satisfies(r -> {
+            assertThat(r.getSuccess()).isTrue();
+            assertThat(r.getNotificationId()).isEqualTo(first.values.get(0).getNotificationId());
+        });
+        assertThat(notificationService.getAllNotifications()).hasSize(1);
+    }
+
+    @Test
+    void sendNotifications_stores_partial_batch_after_delay() throws InterruptedException {
+        var requests = grpcService.sendNotifications(new FakeCall<>());
+
+        requests.onNext(request("lonely"));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (notificationService.getAllNotifications().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(notificationService.getAllNotifications())
+                .extracting(n -> n.getMessage()).containsExactly("lonely");
+    }
+
+    @Test
+    void sendNotifications_keeps_in_flight_within_window_against_slow_store() throws InterruptedException {
+        int window = 64;
+        var slowService = new NotificationService(new NotificationStore()) {
+            @Override
+            public long[] createNotificationsFromGrpc(List<IncomingNotification> incoming) {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.createNotificationsFromGrpc(incoming);
+            }
+        };
+        var slowGrpc = new NotificationGrpcServiceImpl(
+                slowService, new GrpcIngestProperties(16, Duration.ofMillis(5), window));
+        try {
+            var call = new FakeCall<NotificationResponse>();
+            var requests = slowGrpc.sendNotifications(call);
+            assertThat(call.autoRequestDisabled).isTrue();
+
+            // Клиент, соблюдающий управление потоком: шлёт, только пока есть запрошенные сообщения.
+            long maxInFlight = 0;
+            int waits = 0;
+            for (int i = 0; i < 2000; i++) {
+                if (!call.credits.tryAcquire()) {
+                    waits++;
+                    assertThat(call.credits.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+                }
+                requests.onNext(request("m" + i));
+                maxInFlight = Math.max(maxInFlight, slowGrpc.inFlightMessages());
+            }
+            requests.onCompleted();
+
+            assertThat(call.awaitCompletion()).singleElement()
+                    .satisfies(r -> assertThat(r.getMessage()).isEqualTo(
+                            "Processed 2000 notifications: 2000 success, 0 failed"));
+            assertThat(maxInFlight).isLessThanOrEqualTo(window);
+            assertThat(waits).isPositive();
+            assertThat(slowGrpc.inFlightMessages()).isZero();
+            assertThat(slowService.getAllNotifications()).hasSize(2000);
+        } finally {
+            slowGrpc.shutdown();
+        }
+    }
+
+    @Test
+    void metrics_count_batch_sizes_and_unparsable_dates() throws InterruptedException {
+        var registry = new SimpleMeterRegistry();
+        grpcService.shutdown();
+        grpcService = new NotificationGrpcServiceImpl(
+                notificationService, new GrpcIngestProperties(3, Duration.ofMillis(20), 0),
+                new IngestLogProperties(null, 0, null), registry);
+        var call = new FakeCall<NotificationResponse>();
+        var requests = grpcService.sendNotifications(call);
+
+        for (int i = 0; i < 6; i++) {
+            requests.onNext(request("c" + i));
+        }
+        requests.onNext(request("bad date").toBuilder().setDate("2025-01-01").build());
+        requests.onCompleted();
+        call.awaitCompletion();
+
+        var batchSizes = registry.get("notification.grpc.ingest.batch.size").summary();
+        assertThat(batchSizes.count()).isEqualTo(3);
+        assertThat(batchSizes.totalAmount()).isEqualTo(7);
+        assertThat(registry.get("notification.grpc.date.parse.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void streamNotifications_acks_every_batch_with_stored_ids() throws InterruptedException {
+        var call = new FakeCall<NotificationAck>();
+        var requests = grpcService.streamNotifications(call);
+
+        for (int i = 0; i < 7; i++) {
+            requests.onNext(sequenced(10 + i, "c" + i));
+        }
+        requests.onCompleted();
+
+        var acks = call.awaitCompletion();
+        assertThat(acks).extracting(NotificationAck::getAckedThrough).containsExactly(12L, 15L, 16L);
+        assertThat(acks).allSatisfy(ack -> assertThat(ack.getFailedList()).isEmpty());
+        var stored = acks.stream().flatMap(ack -> ack.getStoredList().stream()).toList();
+        assertThat(stored).extracting(StoredAck::getSequence)
+                .containsExactly(10L, 11L, 12L, 13L, 14L, 15L, 16L);
+        assertThat(notificationService.getNotificationById(stored.get(4).getNotificationId()).getMessage())
+                .isEqualTo("c4");
+    }
+
+    @Test
+    void streamNotifications_reports_failed_sequences() throws InterruptedException {
+        var failingService = new NotificationService(new NotificationStore()) {
+            @Override
+            public long[] createNotificationsFromGrpc(List<IncomingNotification> incoming) {
+                throw new IllegalStateException("disk full");
+            }
+        };
+        var failingGrpc = new NotificationGrpcServiceImpl(
+                failingService, new GrpcIngestProperties(2, Duration.ofMillis(5), 0));
+        try {
+            var call = new FakeCall<NotificationAck>();
+            var requests = failingGrpc.streamNotifications(call);
+            requests.onNext(sequenced(1, "a"));
+            requests.onNext(sequenced(2, "b"));
+            requests.onCompleted();
+
+            assertThat(call.awaitCompletion()).singleElement().satisfies(ack -> {
+                assertThat(ack.getStoredList()).isEmpty();
+                assertThat(ack.getFailedList()).extracting(FailedAck::getSequence).containsExactly(1L, 2L);
+                assertThat(ack.getFailed(0).getError()).isEqualTo("disk full");
+            });
+            assertThat(failingGrpc.inFlightMessages()).isZero();
+        } finally {
+            failingGrpc.shutdown();
+        }
+    }
+
+    @Test
+    void streamNotifications_rejects_only_the_message_with_too_long_idempotency_key() throws InterruptedException {
+        var call = new FakeCall<NotificationAck>();
+        var requests = grpcService.streamNotifications(call);
+
+        requests.onNext(sequenced(1, "a"));
+        requests.onNext(SequencedNotification.newBuilder().setSequence(2).setNotification(
+                request("b").toBuilder().setIdempotencyKey("k".repeat(256))).build());
+        requests.onNext(sequenced(3, "c"));
+        requests.onCompleted();
+
+        assertThat(call.awaitCompletion()).singleElement().satisfies(ack -> {
+            assertThat(ack.getStoredList()).extracting(StoredAck::getSequence).containsExactly(1L, 3L);
+            assertThat(ack.getFailedList()).singleElement().satisfies(failed -> {
+                assertThat(failed.getSequence()).isEqualTo(2);
+                assertThat(failed.getError()).isEqualTo(NotificationService.IDEMPOTENCY_KEY_TOO_LONG);
+            });
+        });
+        assertThat(notificationService.getAllNotifications()).extracting(n -> n.getMessage())
+                .containsExactly("a", "c");
+        assertThat(grpcService.inFlightMessages()).isZero();
+    }
+
+    @Test
+    void streamNotifications_stores_everything_accepted_before_cancel() throws InterruptedException {
+        var slowService = new NotificationService(new NotificationStore()) {
+            @Override
+            public long[] createNotificationsFromGrpc(List<IncomingNotification> incoming) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.createNotificationsFromGrpc(incoming);
+            }
+        };
+        var slowGrpc = new NotificationGrpcServiceImpl(
+                slowService, new GrpcIngestProperties(3, Duration.ofMillis(5), 0));
+        try {
+            var call = new FakeCall<NotificationAck>();
+            var requests = slowGrpc.streamNotifications(call);
+            for (int i = 0; i < 10; i++) {
+                requests.onNext(sequenced(i, "c" + i));
+            }
+            // клиент отменил вызов, пока пачки ещё сохраняются
+            call.cancel();
+            requests.onError(Status.CANCELLED.asRuntimeException());
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while ((slowService.getAllNotifications().size() < 10 || slowGrpc.inFlightMessages() > 0)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(slowService.getAllNotifications()).extracting(n -> n.getMessage())
+                    .containsExactly("c0", "c1", "c2", "c3", "c4", "c5", "c6", "c7", "c8", "c9");
+            assertThat(slowGrpc.inFlightMessages()).isZero();
+        } finally {
+            slowGrpc.shutdown();
+        }
+    }
+
+    @Test
+    void subscribe_streams_new_notifications_for_user_and_levels() throws InterruptedException {
+        var feed = new NotificationFeed(64, SlowSubscriberPolicy.SKIP);
+        var store = new NotificationStore();
+        store.addSaveListener(feed::publish);
+        var feedService = new NotificationService(store, feed);
+        var feedGrpc = new NotificationGrpcServiceImpl(feedService, new GrpcIngestProperties(0, null, 0));
+        try {
+            var call = new FakeCall<FeedEvent>();
+            feedGrpc.subscribe(SubscribeRequest.newBuilder().setUserId("u1").addLevels("ERROR").build(), call);
+
+            var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+            feedService.createNotificationFromGrpc("u1", "INFO", "quiet", base);
+            feedService.createNotificationFromGrpc("u2", "ERROR", "other user", base);
+            feedService.createNotificationFromGrpc("u1", "ERROR", "alarm", base);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (call.values.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(call.values).singleElement()
+                    .satisfies(event -> assertThat(event.getNotification().getContent()).isEqualTo("alarm"));
+        } finally {
+            feed.close();
+            feedGrpc.shutdown();
+        }
+    }
+
+    @Test
+    void listNotifications_filters_by_level_and_pages_with_token() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        String[] levels = {"INFO", "WARNING", "ERROR"};
+        for (int i = 0; i < 9; i++) {
+            notificationService.createNotificationFromGrpc("u1", levels[i % 3], "c" + i, base.plusMinutes(i));
+        }
+
+        var first = list(ListNotificationsRequest.newBuilder()
+                .addLevels("ERROR").addLevels("WARNING").setPageSize(4).build());
+        assertThat(first.values).hasSize(1);
+        assertThat(first.values.get(0).getNotificationsList())
+                .extracting(NotificationItem::getContent).containsExactly("c1", "c2", "c4", "c5");
+        assertThat(first.values.get(0).getNextPageToken()).isNotEmpty();
+
+        var second = list(ListNotificationsRequest.newBuilder()
+                .addLevels("ERROR").addLevels("WARNING").setPageSize(4)
+                .setPageToken(first.values.get(0).getNextPageToken()).build());
+        assertThat(second.values.get(0).getNotificationsList())
+                .extracting(NotificationItem::getContent).containsExactly("c7", "c8");
+        assertThat(second.values.get(0).getNextPageToken()).isEmpty();
+
+        var inbox = list(ListNotificationsRequest.newBuilder()
+                .setUserId("u1").addLevels("INFO").setFrom(base.plusMinutes(1).toString()).build());
+        assertThat(inbox.values.get(0).getNotificationsList())
+                .extracting(NotificationItem::getContent).containsExactly("c3", "c6");
+    }
+
+    @Test
+    void date_millis_takes_precedence_over_date_and_is_returned_with_items() throws InterruptedException {
+        var createdAt = LocalDateTime.of(2025, 3, 1, 8, 30, 15, 250_000_000);
+        long millis = createdAt.toEpochSecond(ZoneOffset.UTC) * 1000 + 250;
+        var call = new FakeCall<NotificationResponse>();
+        grpcService.sendNotification(request("binary").toBuilder().setDateMillis(millis).build(), call);
+        assertThat(call.awaitCompletion()).singleElement().satisfies(r -> assertThat(r.getSuccess()).isTrue());
+
+        var item = list(ListNotificationsRequest.newBuilder().build()).values.get(0).getNotifications(0);
+        assertThat(item.getDate()).isEqualTo("2025-03-01T08:30:15.25");
+        assertThat(item.getDateMillis()).isEqualTo(millis);
+    }
+
+    @Test
+    void listNotifications_rejects_invalid_bounds() {
+        var result = list(ListNotificationsRequest.newBuilder().setFrom("yesterday").build());
+
+        assertThat(result.values).isEmpty();
+        assertThat(result.error).isInstanceOf(StatusRuntimeException.class);
+        assertThat(Status.fromThrowable(result.error).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+    }
+
+    private static SequencedNotification sequenced(long sequence, String content) {
+        return SequencedNotification.newBuilder().setSequence(sequence).setNotification(request(content)).build();
+    }
+
+    private static NotificationRequest request(String content) {
+        return NotificationRequest.newBuilder()
+                .setUserId("u1")
+                .setLevel("INFO")
+                .setContent(content)
+                .setDate("2025-01-01T12:00:00")
+                .build();
+    }
+
+    /**
+     * Серверная сторона вызова без транспорта: запросы request(n) копятся в credits.
+     * После {@link #cancel()} ответы, как в grpc-java, отбрасываются при заданном
+     * onCancelHandler, а без него бросают CANCELLED.
+     */
+    private static final class FakeCall<T> extends ServerCallStreamObserver<T> {
+        private final Semaphore credits = new Semaphore(0);
+        private final List<T> values = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean autoRequestDisabled;
+        private volatile boolean cancelled;
+        private volatile Runnable onCancelHandler;
+
+        void cancel() {
+            cancelled = true;
+            if (onCancelHandler != null) {
+                onCancelHandler.run();
+            }
+        }
+
+        List<T> awaitCompletion() throws InterruptedException {
+            assertThat(completed.await(10, TimeUnit.SECONDS)).isTrue();
+            return values;
+        }
+
+        @Override
+        public void disableAutoRequest() {
+            autoRequestDisabled = true;
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+            disableAutoRequest();
+        }
+
+        @Override
+        public void request(int count) {
+            credits.release(count);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            this.onCancelHandler = onCancelHandler;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onNext(T value) {
+            if (!afterCancel()) {
+                values.add(value);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onCompleted() {
+            if (!afterCancel()) {
+                completed.countDown();
+            }
+        }
+
+        private boolean afterCancel() {
+            if (cancelled && onCancelHandler == null) {
+                throw Status.CANCELLED.withDescription("call already cancelled").asRuntimeException();
+            }
+            return cancelled;
+        }
+    }
+
+    private Recorder<ListNotificationsResponse> list(ListNotificationsRequest request) {
+        var recorder = new Recorder<ListNotificationsResponse>();
+        grpcService.listNotifications(request, recorder);
+        return recorder;
+    }
+
+    private static final class Recorder<T> implements StreamObserver<T> {
+        private final List<T> values = new ArrayList<>();
+        private Throwable error;
+
+        @Override
+        public void onNext(T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.notification.persistence;
+
+import com.example.notification.config.PersistenceProperties;
+import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
+import com.example.notification.service.NotificationSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void startup_loads_snapshot_and_replays_only_the_tail() throws IOException {
+        long deletedId;
+        try (var wal = open()) {
+            var store = new NotificationStore(wal);
+            for (int i = 0; i < 200; i++) {
+                store.save(notification("before-" + i));
+            }
+            deletedId = store.findAll().get(0).getId();
+            snapshotService(store, wal).snapshot();
+            store.removeById(deletedId);
+            store.save(notification("after"));
+        }
+        assertThat(files(SnapshotFile.SUFFIX)).hasSize(1);
+        // сегменты, полностью покрытые снимком, удалены
+        assertThat(files(WriteAheadLog.SEGMENT_SUFFIX).size()).isLessThan(5);
+
+        try (var wal = open()) {
+            var store = new NotificationStore(wal);
+            assertThat(store.size()).isEqualTo(200);
+            assertThat(store.findById(deletedId)).isNull();
+            assertThat(store.findAll()).extracting(StoredNotification::getTitle).contains("before-199", "after");
+            assertThat(store.save(notification("next")).getId()).isEqualTo(202L);
+        }
+    }
+
+    @Test
+    void snapshot_taken_during_concurrent_writes_recovers_every_write() throws Exception {
+        int written;
+        try (var wal = open()) {
+            var store = new NotificationStore(wal);
+            var service = snapshotService(store, wal);
+            var running = new AtomicBoolean(true);
+            var writer = new Thread(() -> {
+                int i = 0;
+                while (running.get()) {
+                    var saved = store.save(notification("w" + i++));
+                    if (i % 3 == 0) {
+                        store.removeById(saved.getId());
+                    }
+                }
+            });
+            writer.start();
+            for (int i = 0; i < 5; i++) {
+                service.snapshot();
+            }
+            running.set(false);
+            writer.join();
+            written = store.size();
+        }
+
+        try (var wal = open()) {
+            assertThat(new NotificationStore(wal).size()).isEqualTo(written);
+        }
+    }
+
+    @Test
+    void corrupt_snapshot_fails_startup() throws IOException {
+        try (var wal = open()) {
+            var store = new NotificationStore(wal);
+            for (int i = 0; i < 50; i++) {
+                store.save(notification("n" + i));
+            }
+            snapshotService(store, wal).snapshot();
+        }
+        Path snapshot = files(SnapshotFile.SUFFIX).get(0);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42, 42, 42}), 100);
+        }
+
+        try (var wal = open()) {
+            assertThatThrownBy(() -> new NotificationStore(wal)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private WriteAheadLog open() {
+        return new WriteAheadLog(directory, FsyncPolicy.OS, 4 * 1024, Duration.ofMillis(5));
+    }
+
+    private NotificationSnapshotService snapshotService(NotificationStore store, WriteAheadLog wal) {
+        var properties = new PersistenceProperties(true, directory, FsyncPolicy.OS, null, null, null, 0);
+        return new NotificationSnapshotService(store, wal, properties);
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    private static Notification notification(String title) {
+        var n = new Notification();
+        n.setTitle(title);
+        n.setMessage("body " + title);
+        n.setType("INFO");
+        n.setCreatedAt(LocalDateTime.now());
+        return n;
+    }
+}
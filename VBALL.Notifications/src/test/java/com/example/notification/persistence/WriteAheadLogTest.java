@@ -0,0 +1,336 @@
+package com.example.notification.persistence;
+
+import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    void store_recovers_saves_updates_and_deletes(FsyncPolicy policy) throws IOException {
+        long keptId;
+        long deletedId;
+        try (var wal = open(policy, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            var kept = store.save(notification("kept", "alice"));
+            var deleted = store.save(notification("deleted", null));
+            var changed = new Notification(kept.getId(), "changed", "new body", "ERROR", kept.getCreatedAt());
+            changed.setUserId("alice");
+            store.update(changed);
+            store.removeById(deleted.getId());
+            keptId = kept.getId();
+            deletedId = deleted.getId();
+        }
+
+        try (var wal = open(policy, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+
+            assertThat(store.size()).isEqualTo(1);
+            var recovered = store.findById(keptId);
+            assertThat(recovered.getTitle()).isEqualTo("changed");
+            assertThat(recovered.getMessage()).isEqualTo("new body");
+            assertThat(recovered.getType()).isEqualTo("ERROR");
+            assertThat(recovered.getUserId()).isEqualTo("alice");
+            assertThat(store.findById(deletedId)).isNull();
+            assertThat(store.save(notification("next", null)).getId()).isGreaterThan(deletedId);
+        }
+    }
+
+    @Test
+    void segments_roll_over_and_replay_in_order() throws IOException {
+        try (var wal = open(FsyncPolicy.OS, 512)) {
+            var store = new NotificationStore(wal);
+            for (int i = 0; i < 100; i++) {
+                store.save(notification("n" + i, null));
+            }
+        }
+        assertThat(segments()).hasSizeGreaterThan(5);
+
+        try (var wal = open(FsyncPolicy.OS, 512)) {
+            var store = new NotificationStore(wal);
+            assertThat(store.size()).isEqualTo(100);
+            assertThat(store.findAll()).extracting(StoredNotification::getTitle).startsWith("n0", "n1").endsWith("n99");
+        }
+    }
+
+    @Test
+    void torn_tail_is_truncated_at_last_complete_record() throws IOException {
+        try (var wal = open(FsyncPolicy.PER_WRITE, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            for (int i = 0; i < 10; i++) {
+                store.save(notification("n" + i, null));
+            }
+        }
+        Path segment = segments().get(segments().size() - 1);
+        long fullSize = Files.size(segment);
+        // обрезаем последнюю запись посередине, как при падении во время записи
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(fullSize - 7);
+        }
+
+        try (var wal = open(FsyncPolicy.PER_WRITE, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            assertThat(store.size()).isEqualTo(9);
+            store.save(notification("after-crash", null));
+        }
+        try (var wal = open(FsyncPolicy.PER_WRITE, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            assertThat(store.size()).isEqualTo(10);
+            assertThat(store.findAll()).extracting(StoredNotification::getTitle).contains("after-crash");
+        }
+    }
+
+    @Test
+    void corruption_in_a_middle_segment_fails_startup() throws IOException {
+        try (var wal = open(FsyncPolicy.OS, 512)) {
+            var store = new NotificationStore(wal);
+            for (int i = 0; i < 50; i++) {
+                store.save(notification("n" + i, null));
+            }
+        }
+        Path first = segments().get(0);
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(first) - 3);
+        }
+
+        try (var wal = open(FsyncPolicy.OS, 512)) {
+            assertThatThrownBy(() -> new NotificationStore(wal)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    void batch_is_written_once_and_replayed_in_order(FsyncPolicy policy) throws IOException {
+        List<StoredNotification> saved;
+        try (var wal = open(policy, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            saved = store.saveAll(List.of(
+                    notification("b0", "alice"), notification("b1", null), notification("b2", "bob")));
+            assertThat(wal.lastLsn()).isEqualTo(3);
+            store.save(notification("after", null));
+        }
+
+        try (var wal = open(policy, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            assertThat(store.findAll()).extracting(StoredNotification::getTitle)
+                    .containsExactly("b0", "b1", "b2", "after");
+            assertThat(store.findById(saved.get(2).getId()).getUserId()).isEqualTo("bob");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    void batch_delete_is_written_once_and_replayed(FsyncPolicy policy) throws IOException {
+        List<StoredNotification> saved;
+        try (var wal = open(policy, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            saved = store.saveAll(List.of(notification("d0", null), notification("d1", null), notification("d2", null)));
+            long before = wal.lastLsn();
+            store.removeAll(new long[] {saved.get(0).getId(), 999, saved.get(2).getId()});
+            assertThat(wal.lastLsn()).isEqualTo(before + 2);
+        }
+
+        try (var wal = open(policy, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            assertThat(store.findAll()).extracting(StoredNotification::getTitle).containsExactly("d1");
+        }
+    }
+
+    @Test
+    void group_commit_releases_concurrent_writers() throws Exception {
+        try (var wal = open(FsyncPolicy.GROUP, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<StoredNotification>> futures = Stream.generate(() -> executor.submit(
+                        () -> store.save(notification("concurrent", null)))).limit(200).toList();
+                for (Future<StoredNotification> future : futures) {
+                    assertThat(future.get().getId()).isNotNull();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertThat(wal.lastLsn()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void eviction_of_a_large_head_waits_for_group_commit_once() throws IOException {
+        // по одному удалению на fsync 4990 записей при окне 20 мс заняли бы больше полутора минут
+        try (var wal = new WriteAheadLog(directory, FsyncPolicy.GROUP, 1024 * 1024, Duration.ofMillis(20))) {
+            var store = new NotificationStore(wal);
+            List<Notification> batch = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                batch.add(notification("e" + i, null));
+            }
+            store.saveAll(batch);
+
+            assertThat(store.evictOldest(10, 10_000)).isEqualTo(4990);
+            assertThat(store.size()).isEqualTo(10);
+        }
+
+        try (var wal = open(FsyncPolicy.GROUP, 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            assertThat(store.findAll()).extracting(StoredNotification::getTitle)
+                    .containsExactlyInAnyOrder("e4990", "e4991", "e4992", "e4993", "e4994",
+                            "e4995", "e4996", "e4997", "e4998", "e4999");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void close_during_group_commit_keeps_every_acknowledged_write() throws Exception {
+        List<Long> acknowledged = new CopyOnWriteArrayList<>();
+        var wal = open(FsyncPolicy.GROUP, 1024 * 1024);
+        var store = new NotificationStore(wal);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                writers.add(executor.submit(() -> {
+                    try {
+                        while (true) {
+                            acknowledged.add(store.save(notification("acked", null)).getId());
+                        }
+                    } catch (IllegalStateException e) {
+                        // журнал закрыт
+                    }
+                }));
+            }
+            Thread.sleep(200);
+            wal.close();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(acknowledged).isNotEmpty();
+
+        try (var reopened = open(FsyncPolicy.GROUP, 1024 * 1024)) {
+            var recovered = new NotificationStore(reopened);
+            assertThat(acknowledged).allSatisfy(id -> assertThat(recovered.findById(id)).isNotNull());
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void concurrent_writes_on_virtual_threads_do_not_pin_carriers() throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (var recording = new RecordingStream();
+             var wal = open(FsyncPolicy.GROUP, 1024 * 1024)) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            var store = new NotificationStore(wal);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 200; i++) {
+                    int n = i;
+                    executor.submit(() -> {
+                        var saved = store.save(notification("v" + n, "user" + (n % 4)));
+                        store.saveAll(List.of(notification("b" + n, null), notification("c" + n, null)));
+                        var changed = new Notification(saved.getId(), "changed", "body", "INFO", saved.getCreatedAt());
+                        store.update(changed);
+                        store.removeById(saved.getId());
+                        return null;
+                    });
+                }
+            }
+            assertThat(store.size()).isEqualTo(400);
+            // события JFR доставляются асинхронно
+            Thread.sleep(1500);
+        }
+        assertThat(pinned).as("pinned virtual threads: %s", pinned).isEmpty();
+    }
+
+    @Test
+    @Timeout(60)
+    void checkpoints_during_concurrent_batches_and_single_writes_do_not_deadlock() throws Exception {
+        try (var wal = open(FsyncPolicy.OS, 64 * 1024 * 1024)) {
+            var store = new NotificationStore(wal);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int w = 0; w < 2; w++) {
+                    writers.add(executor.submit(() -> {
+                        for (int b = 0; b < 50; b++) {
+                            store.saveAll(Stream.generate(() -> notification("batch", null)).limit(512).toList());
+                        }
+                    }));
+                    writers.add(executor.submit(() -> {
+                        for (int i = 0; i < 5000; i++) {
+                            store.removeById(store.save(notification("single", null)).getId());
+                        }
+                    }));
+                }
+                long checkpoints = 0;
+                long previous = 0;
+                while (!writers.stream().allMatch(Future::isDone)) {
+                    long lsn = wal.checkpointLsn();
+                    assertThat(lsn).isGreaterThanOrEqualTo(previous);
+                    previous = lsn;
+                    checkpoints++;
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+                assertThat(checkpoints).isPositive();
+                assertThat(wal.checkpointLsn()).isEqualTo(wal.lastLsn());
+                assertThat(store.size()).isEqualTo(2 * 50 * 512);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private WriteAheadLog open(FsyncPolicy policy, long segmentBytes) {
+        return new WriteAheadLog(directory, policy, segmentBytes, Duration.ofMillis(2));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.toString().endsWith(WriteAheadLog.SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static Notification notification(String title, String userId) {
+        var n = new Notification();
+        n.setTitle(title);
+        n.setMessage("Матч " + title);
+        n.setType("INFO");
+        n.setUserId(userId);
+        n.setCreatedAt(LocalDateTime.now());
+        return n;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.notification.repository;
+
+import com.example.notification.model.Notification;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Замер памяти на уведомление: POJO в том виде, в каком его раньше держало хранилище,
+ * против компактной записи вместе с её долей чанков арены.
+ */
+class NotificationFootprintTest {
+
+    private static final int COUNT = 10_000;
+    private static final String[] LEVELS = {"INFO", "WARNING", "ERROR"};
+
+    @Test
+    void compact_record_takes_less_than_half_of_pojo() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var pojos = new ArrayList<Notification>(COUNT);
+        var store = new NotificationStore(NotificationJournal.NONE, new MessageArena(64 * 1024, false), false);
+        for (int i = 0; i < COUNT; i++) {
+            pojos.add(wireCopy(i, base.plusSeconds(i)));
+            store.save(wireCopy(i, base.plusSeconds(i)));
+        }
+        List<StoredNotification> compact = store.findAll();
+
+        long pojoBytes = GraphLayout.parseInstance(pojos.toArray()).totalSize() / COUNT;
+        long compactBytes = GraphLayout.parseInstance(compact.toArray()).totalSize() / COUNT;
+
+        assertThat(compactBytes).isLessThan(pojoBytes / 2);
+    }
+
+    /**
+     * Уведомление, как его собирает приём по gRPC: у каждого свои экземпляры строк.
+     */
+    private static Notification wireCopy(int i, LocalDateTime createdAt) {
+        String level = LEVELS[i % LEVELS.length];
+        var n = new Notification();
+        n.setId((long) i + 1);
+        n.setTitle(new String(level));
+        n.setType(new String(level));
+        n.setUserId("user-" + (i % 100));
+        n.setMessage("Match " + i + " moved to court " + (i % 8) + ", start at 18:00");
+        n.setCreatedAt(createdAt);
+        return n;
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.notification.repository;
+
+import com.example.notification.model.Notification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationStoreTest {
+
+    private NotificationStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new NotificationStore();
+    }
+
+    @Test
+    void findById_returns_saved_notification() {
+        var saved = store.save(notification("first"));
+
+        assertThat(store.findById(saved.getId())).isSameAs(saved);
+        assertThat(store.findById(999L)).isNull();
+        assertThat(store.findById(null)).isNull();
+    }
+
+    @Test
+    void findAll_keeps_order_after_removal() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var first = store.save(notification("first", base));
+        var second = store.save(notification("second", base.plusMinutes(1)));
+        var third = store.save(notification("third", base.plusMinutes(2)));
+
+        assertThat(store.removeById(second.getId())).isTrue();
+        assertThat(store.removeById(second.getId())).isFalse();
+
+        assertThat(store.findAll()).containsExactly(first, third);
+        assertThat(store.findById(second.getId())).isNull();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void version_changes_on_every_modification() {
+        long initial = store.version();
+        var saved = store.save(notification("first"));
+        long afterSave = store.version();
+        store.findAll();
+        assertThat(store.version()).isEqualTo(afterSave).isGreaterThan(initial);
+
+        store.update(notification("missing")); // без id — ничего не меняется
+        assertThat(store.version()).isEqualTo(afterSave);
+
+        store.removeById(saved.getId());
+        assertThat(store.version()).isGreaterThan(afterSave);
+        assertThat(store.lastModified()).isPositive();
+    }
+
+    @Test
+    void save_with_existing_id_replaces_entry() {
+        var original = store.save(notification("original"));
+        var replacement = notification("replacement");
+        replacement.setId(original.getId());
+
+        var stored = store.save(replacement);
+
+        assertThat(store.findAll()).containsExactly(stored);
+        assertThat(store.findById(original.getId())).isSameAs(stored);
+        assertThat(stored.getTitle()).isEqualTo("replacement");
+    }
+
+    @Test
+    void findAll_orders_by_createdAt_then_id_regardless_of_insertion() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var late = store.save(notification("late", base.plusHours(1)));
+        var tieSecond = store.save(notification("tie-a", base));
+        var tieThird = store.save(notification("tie-b", base));
+        var early = store.save(notification("early", base.minusHours(1)));
+
+        assertThat(store.findAll()).containsExactly(early, tieSecond, tieThird, late);
+    }
+
+    @Test
+    void findSince_and_findBetween_return_sorted_ranges() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var n0 = store.save(notification("n0", base));
+        var n1 = store.save(notification("n1", base.plusMinutes(10)));
+        var n2 = store.save(notification("n2", base.plusMinutes(5)));
+        var n3 = store.save(notification("n3", base.plusMinutes(20)));
+
+        assertThat(store.findSince(base.plusMinutes(5))).containsExactly(n2, n1, n3);
+        assertThat(store.findBetween(base, base.plusMinutes(10))).containsExactly(n0, n2);
+        assertThat(store.findSince(base.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void findPage_walks_time_index_with_cursor_and_filters() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var saved = new ArrayList<StoredNotification>();
+        for (int i = 0; i < 10; i++) {
+            var n = notification("n" + i, base.plusMinutes(i));
+            n.setType(i % 2 == 0 ? "INFO" : "ERROR");
+            saved.add(store.save(n));
+        }
+
+        var first = store.findPage(new NotificationQuery(null, null, null, Set.of("ERROR"), null, 3));
+        assertThat(first.items()).containsExactly(saved.get(1), saved.get(3), saved.get(5));
+        assertThat(first.hasMore()).isTrue();
+
+        var last = first.items().get(2);
+        var after = new NotificationQuery.Position(last.getCreatedAtMillis(), last.getId());
+        var second = store.findPage(new NotificationQuery(null, null, null, Set.of("ERROR"), after, 3));
+        assertThat(second.items()).containsExactly(saved.get(7), saved.get(9));
+        assertThat(second.hasMore()).isFalse();
+
+        var ranged = store.findPage(new NotificationQuery(null, base.plusMinutes(2), base.plusMinutes(5), null, null, 10));
+        assertThat(ranged.items()).containsExactly(saved.get(2), saved.get(3), saved.get(4));
+    }
+
+    @Test
+    void findPage_merges_type_indexes_in_time_order() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var saved = new ArrayList<StoredNotification>();
+        String[] types = {"INFO", "WARNING", "ERROR", "INFO"};
+        for (int i = 0; i < 12; i++) {
+            // одинаковое время у пар соседей проверяет порядок по id при слиянии
+            var n = notification("n" + i, base.plusMinutes(i / 2));
+            n.setType(types[i % types.length]);
+            saved.add(store.save(n));
+        }
+
+        var first = store.findPage(new NotificationQuery(null, null, null, Set.of("ERROR", "WARNING"), null, 4));
+        assertThat(first.items()).containsExactly(saved.get(1), saved.get(2), saved.get(5), saved.get(6));
+        assertThat(first.hasMore()).isTrue();
+
+        var last = first.items().get(3);
+        var after = new NotificationQuery.Position(last.getCreatedAtMillis(), last.getId());
+        var second = store.findPage(new NotificationQuery(
+                null, null, base.plusMinutes(5), Set.of("ERROR", "WARNING", "MISSING"), after, 4));
+        assertThat(second.items()).containsExactly(saved.get(9));
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    @Test
+    void rare_type_page_does_not_scan_other_types() {
+        var large = new NotificationStore();
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < 200_000; i++) {
+            var n = notification("n" + i, base.plusSeconds(i));
+            n.setType(i % 10_000 == 0 ? "ERROR" : "INFO");
+            large.save(n);
+        }
+        var query = new NotificationQuery(null, null, null, Set.of("ERROR"), null, 100);
+
+        // прогрев JIT
+        for (int i = 0; i < 50; i++) {
+            large.findPage(query);
+        }
+        long indexedStart = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            assertThat(large.findPage(query).items()).hasSize(20);
+        }
+        long indexed = System.nanoTime() - indexedStart;
+
+        long scanStart = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertThat(large.findAll().stream().filter(n -> "ERROR".equals(n.getType())).count()).isEqualTo(20);
+        }
+        long scan = (System.nanoTime() - scanStart) * 10;
+
+        // индекс читает 20 записей против 200 000 при обходе
+        assertThat(indexed).isLessThan(scan / 20);
+    }
+
+    @Test
+    void user_inbox_follows_saves_replacements_and_removals() {
+        var forAlice = notification("a1");
+        forAlice.setUserId("alice");
+        var forBob = notification("b1");
+        forBob.setUserId("bob");
+        var savedForAlice = store.save(forAlice);
+        store.save(forBob);
+
+        var inbox = store.findPage(new NotificationQuery("alice", null, null, null, null, 10));
+        assertThat(inbox.items()).containsExactly(savedForAlice);
+
+        var moved = notification("moved");
+        moved.setId(forAlice.getId());
+        moved.setUserId("bob");
+        var savedMoved = store.save(moved);
+        store.removeById(forBob.getId());
+
+        assertThat(store.findPage(new NotificationQuery("alice", null, null, null, null, 10)).items()).isEmpty();
+        assertThat(store.findPage(new NotificationQuery("bob", null, null, null, null, 10)).items())
+                .containsExactly(savedMoved);
+        assertThat(store.userCount()).isEqualTo(1);
+    }
+
+    @Test
+    void update_reindexes_type_and_ignores_missing_ids() {
+        var original = store.save(notification("original"));
+        var changed = notification("changed", null);
+        changed.setId(original.getId());
+        changed.setType("ERROR");
+
+        var updated = store.update(changed);
+        assertThat(updated).isSameAs(store.findById(original.getId()));
+        assertThat(updated.getType()).isEqualTo("ERROR");
+        assertThat(updated.getCreatedAt()).isEqualTo(original.getCreatedAt());
+        assertThat(store.countByType("INFO")).isZero();
+        assertThat(store.countByType("ERROR")).isEqualTo(1);
+
+        var missing = notification("missing");
+        missing.setId(12345L);
+        assertThat(store.update(missing)).isNull();
+        assertThat(store.findById(12345L)).isNull();
+    }
+
+    @Test
+    void eviction_removes_oldest_entries_first() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var saved = new ArrayList<StoredNotification>();
+        for (int i = 0; i < 10; i++) {
+            var n = notification("n" + i, base.plusMinutes(i));
+            n.setType(i < 5 ? "INFO" : "ERROR");
+            saved.add(store.save(n));
+        }
+
+        assertThat(store.evictOlderThan(base.plusMinutes(2), 100)).isEqualTo(2);
+        assertThat(store.evictOldestOfType("ERROR", 3, 100)).isEqualTo(2);
+        assertThat(store.evictOldest(4, 1)).isEqualTo(1);
+        assertThat(store.evictOldest(4, 100)).isEqualTo(1);
+        assertThat(store.evictOldest(4, 100)).isZero();
+
+        assertThat(store.findAll()).containsExactly(saved.get(4), saved.get(7), saved.get(8), saved.get(9))
+                .hasSize(store.size());
+    }
+
+    @Test
+    void compact_record_round_trips_fields_on_and_off_heap() {
+        for (var arena : List.of(new MessageArena(64, false), new MessageArena(64, true))) {
+            var target = new NotificationStore(NotificationJournal.NONE, arena, true);
+            var createdAt = LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_456_789);
+            var unicode = notification("Матч", createdAt);
+            unicode.setMessage("Перенос на корт №3 🏐");
+            unicode.setUserId("alice");
+            var empty = notification("empty", createdAt);
+            empty.setMessage("");
+            var missing = notification("missing", createdAt);
+            missing.setMessage(null);
+            var longer = notification("long", createdAt);
+            longer.setMessage("x".repeat(1000));
+
+            var stored = target.save(unicode);
+            assertThat(stored.getMessage()).isEqualTo("Перенос на корт №3 🏐");
+            assertThat(stored.getTitle()).isEqualTo("Матч");
+            assertThat(stored.getUserId()).isEqualTo("alice");
+            assertThat(stored.getCreatedAt()).isEqualTo(createdAt.withNano(123_000_000));
+            assertThat(target.save(empty).getMessage()).isEmpty();
+            assertThat(target.save(missing).getMessage()).isNull();
+            assertThat(target.save(longer).getMessage()).hasSize(1000);
+        }
+    }
+
+    @Test
+    void range_bounds_respect_truncated_timestamps() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var stored = store.save(notification("n", base.plusNanos(1_500_000)));
+
+        assertThat(store.findSince(base.plusNanos(1_000_001))).isEmpty();
+        assertThat(store.findSince(base.plusNanos(1_000_000))).containsExactly(stored);
+        assertThat(store.findBetween(base, base.plusNanos(1_000_001))).containsExactly(stored);
+    }
+
+    @Test
+    void search_matches_all_words_and_prefixes_newest_first() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var spartak = store.save(message("Spartak vs Dynamo moved to court 3", base));
+        var dynamo = store.save(message("Dynamo wins, Ivanov MVP", base.plusMinutes(1)));
+        var other = store.save(message("Training cancelled", base.plusMinutes(2)));
+
+        assertThat(store.search(TextQuery.parse("dynamo"), null, 10).items()).containsExactly(dynamo, spartak);
+        assertThat(store.search(TextQuery.parse("DYNAMO court"), null, 10).items()).containsExactly(spartak);
+        assertThat(store.search(TextQuery.parse("dyn* ivan*"), null, 10).items()).containsExactly(dynamo);
+        assertThat(store.search(TextQuery.parse("cancel*"), null, 10).items()).containsExactly(other);
+        assertThat(store.search(TextQuery.parse("hockey"), null, 10).items()).isEmpty();
+
+        var first = store.search(TextQuery.parse("dynamo"), null, 1);
+        assertThat(first.items()).containsExactly(dynamo);
+        assertThat(first.hasMore()).isTrue();
+        var before = new NotificationQuery.Position(dynamo.getCreatedAtMillis(), dynamo.getId());
+        assertThat(store.search(TextQuery.parse("dynamo"), before, 1).items()).containsExactly(spartak);
+    }
+
+    @Test
+    void search_index_follows_updates_and_removals() {
+        var original = store.save(message("Spartak plays at 18:00", LocalDateTime.now()));
+        var changed = message("Zenit plays at 19:00", null);
+        changed.setId(original.getId());
+        var updated = store.update(changed);
+
+        assertThat(store.search(TextQuery.parse("spartak"), null, 10).items()).isEmpty();
+        assertThat(store.search(TextQuery.parse("zenit"), null, 10).items()).containsExactly(updated);
+
+        store.removeById(updated.getId());
+        assertThat(store.search(TextQuery.parse("plays"), null, 10).items()).isEmpty();
+        assertThat(store.searchVocabularySize()).isZero();
+    }
+
+    @Test
+    void findById_cost_stays_flat_as_store_grows() {
+        var small = new NotificationStore();
+        fill(small, 1_000);
+        var large = new NotificationStore();
+        fill(large, 200_000);
+
+        // прогрев JIT на обоих размерах
+        measureLookups(small, 1_000);
+        measureLookups(large, 200_000);
+
+        long smallNanos = measureLookups(small, 1_000);
+        long largeNanos = measureLookups(large, 200_000);
+
+        // линейный поиск дал бы разницу ~200x; допускаем шум кешей и GC
+        assertThat(largeNanos).isLessThan(Math.max(smallNanos, 1_000_000L) * 20);
+    }
+
+    private static void fill(NotificationStore target, int count) {
+        for (int i = 0; i < count; i++) {
+            target.save(notification("n" + i));
+        }
+    }
+
+    private static long measureLookups(NotificationStore target, int size) {
+        long start = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < 20_000; i++) {
+            // ищем в конце хранилища: худший случай для линейного обхода
+            long id = size - (i % 100);
+            if (target.findById(id) != null) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(found).isEqualTo(20_000);
+        return elapsed;
+    }
+
+    @Test
+    void metrics_receive_duration_of_completed_operations() {
+        List<StoreOperation> recorded = new ArrayList<>();
+        store.setMetrics((operation, nanos) -> {
+            assertThat(nanos).isNotNegative();
+            recorded.add(operation);
+        });
+
+        var saved = store.save(notification("first"));
+        store.saveAll(List.of(notification("second")));
+        store.findById(saved.getId());
+        store.findPage(new NotificationQuery(null, null, null, Set.of("INFO"), null, 10));
+        store.removeById(saved.getId());
+        store.removeById(saved.getId());
+
+        assertThat(recorded).containsExactly(StoreOperation.SAVE, StoreOperation.SAVE_ALL,
+                StoreOperation.FIND_PAGE, StoreOperation.REMOVE, StoreOperation.REMOVE);
+    }
+
+    private static Notification message(String text, LocalDateTime createdAt) {
+        var n = notification("INFO", createdAt);
+        n.setMessage(text);
+        return n;
+    }
+
+    @Test
+    void countByLevel_follows_saves_updates_and_removals() {
+        var hour = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0).minusHours(1);
+        var info = store.save(notification("a", hour.plusMinutes(1)));
+        store.save(notification("b", hour.plusMinutes(1).plusSeconds(30)));
+        var error = notification("c", hour.plusMinutes(2));
+        error.setType("ERROR");
+        store.save(error);
+        store.save(notification("too old", hour.minus(RollupInterval.MINUTE.horizon()).minusHours(1)));
+
+        var moved = notification("a", hour.plusMinutes(5));
+        moved.setId(info.getId());
+        moved.setType("WARNING");
+        store.update(moved);
+
+        var minutes = store.countByLevel(RollupInterval.MINUTE, hour, hour.plusHours(1), null);
+        long minute = StoredNotification.toMillis(hour) + 60_000;
+        assertThat(minutes).containsOnlyKeys("INFO", "ERROR", "WARNING");
+        assertThat(minutes.get("INFO")).containsExactly(Map.entry(minute, 1L));
+        assertThat(minutes.get("ERROR")).containsExactly(Map.entry(minute + 60_000, 1L));
+        assertThat(minutes.get("WARNING")).containsExactly(Map.entry(minute + 4 * 60_000, 1L));
+
+        store.removeById(error.getId());
+        var hours = store.countByLevel(RollupInterval.HOUR, hour, hour.plusHours(1), Set.of("INFO", "ERROR"));
+        assertThat(hours).containsOnlyKeys("INFO");
+        assertThat(hours.get("INFO")).containsExactly(Map.entry(StoredNotification.toMillis(hour), 1L));
+        assertThat(store.countByLevel(RollupInterval.MINUTE, hour.minusDays(10), hour, null)).isEmpty();
+    }
+
+    @Test
+    void removeAll_reports_each_id_and_bumps_version_once() {
+        var first = store.save(notification("a"));
+        var second = store.save(notification("b"));
+        var kept = store.save(notification("c"));
+        long version = store.version();
+
+        boolean[] removed = store.removeAll(new long[] {first.getId(), 404, second.getId(), first.getId()});
+
+        assertThat(removed).containsExactly(true, false, true, false);
+        assertThat(store.findAll()).containsExactly(kept);
+        assertThat(store.countByType("INFO")).isEqualTo(1);
+        assertThat(store.version()).isEqualTo(version + 1);
+        assertThat(store.removeAll(new long[] {404})).containsExactly(false);
+        assertThat(store.version()).isEqualTo(version + 1);
+    }
+
+    private static Notification notification(String title) {
+        return notification(title, LocalDateTime.now());
+    }
+
+    private static Notification notification(String title, LocalDateTime createdAt) {
+        var n = new Notification();
+        n.setTitle(title);
+        n.setMessage("msg");
+        n.setType("INFO");
+        n.setCreatedAt(createdAt);
+        return n;
+    }
+}
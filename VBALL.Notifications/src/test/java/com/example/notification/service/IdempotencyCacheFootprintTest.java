@@ -0,0 +1,30 @@
+package com.example.notification.service;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Замер памяти на ключ идемпотентности: весь граф кэша, включая строки ключей (UUID).
+ */
+class IdempotencyCacheFootprintTest {
+
+    private static final int COUNT = 10_000;
+
+    @Test
+    void key_takes_less_than_256_bytes() {
+        var cache = new IdempotencyCache(COUNT, Duration.ofHours(1));
+        for (int i = 0; i < COUNT; i++) {
+            String key = UUID.randomUUID().toString();
+            cache.claim(key);
+            cache.complete(key, i);
+        }
+
+        long bytesPerKey = GraphLayout.parseInstance(cache).totalSize() / COUNT;
+        assertThat(bytesPerKey).isLessThan(256);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.notification.service;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyCacheTest {
+
+    @Test
+    void claim_returns_id_of_completed_key() {
+        var cache = new IdempotencyCache();
+
+        assertThat(cache.claim("k")).isEqualTo(IdempotencyCache.CLAIMED);
+        assertThat(cache.claim("k")).isEqualTo(IdempotencyCache.PENDING);
+        cache.complete("k", 42);
+
+        assertThat(cache.claim("k")).isEqualTo(42);
+        assertThat(cache.claimOrWait("k")).isEqualTo(42);
+    }
+
+    @Test
+    void released_key_is_claimed_by_waiting_retry() throws Exception {
+        var cache = new IdempotencyCache();
+        cache.claim("k");
+
+        var retry = CompletableFuture.supplyAsync(() -> cache.claimOrWait("k"));
+        Thread.sleep(20);
+        assertThat(retry).isNotDone();
+        cache.release("k");
+
+        assertThat(retry.get(5, TimeUnit.SECONDS)).isEqualTo(IdempotencyCache.CLAIMED);
+    }
+
+    @Test
+    void forgets_keys_after_window_and_oldest_keys_over_capacity() throws InterruptedException {
+        var windowed = new IdempotencyCache(10, Duration.ofMillis(50));
+        windowed.claim("k");
+        windowed.complete("k", 1);
+        Thread.sleep(60);
+        assertThat(windowed.claim("k")).isEqualTo(IdempotencyCache.CLAIMED);
+
+        var bounded = new IdempotencyCache(2, Duration.ofHours(1));
+        for (int i = 0; i < 3; i++) {
+            bounded.claim("k" + i);
+            bounded.complete("k" + i, i);
+        }
+        assertThat(bounded.size()).isEqualTo(2);
+        assertThat(bounded.claim("k2")).isEqualTo(2);
+        assertThat(bounded.claim("k0")).isEqualTo(IdempotencyCache.CLAIMED);
+    }
+
+    @Test
+    void pending_key_is_not_forgotten_over_capacity() {
+        var cache = new IdempotencyCache(2, Duration.ofHours(1));
+        cache.claim("saving");
+        for (int i = 0; i < 3; i++) {
+            cache.claim("k" + i);
+            cache.complete("k" + i, i);
+        }
+
+        assertThat(cache.claim("saving")).isEqualTo(IdempotencyCache.PENDING);
+        assertThat(cache.claim("k0")).isEqualTo(IdempotencyCache.CLAIMED);
+        cache.complete("saving", 7);
+        assertThat(cache.claim("saving")).isEqualTo(7);
+    }
+
+    @Test
+    void repeated_release_and_retry_does_not_grow_the_cache() {
+        var cache = new IdempotencyCache(10, Duration.ofHours(1));
+        cache.claim("k");
+        cache.release("k");
+        long before = GraphLayout.parseInstance(cache).totalSize();
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(cache.claim("k")).isEqualTo(IdempotencyCache.CLAIMED);
+            cache.release("k");
+        }
+
+        assertThat(GraphLayout.parseInstance(cache).totalSize()).isEqualTo(before);
+        assertThat(cache.claim("k")).isEqualTo(IdempotencyCache.CLAIMED);
+        cache.complete("k", 5);
+        assertThat(cache.claim("k")).isEqualTo(5);
+    }
+
+    @Test
+    void wait_for_pending_key_is_bounded() {
+        var cache = new IdempotencyCache(10, Duration.ofHours(1), Duration.ofMillis(50));
+        cache.claim("stuck");
+
+        long started = System.nanoTime();
+        assertThat(cache.claimOrWait("stuck")).isEqualTo(IdempotencyCache.TIMED_OUT);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isBetween(
+                Duration.ofMillis(50), Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.notification.service;
+
+import com.example.notification.config.RetentionProperties;
+import com.example.notification.model.Notification;
+import com.example.notification.repository.NotificationStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationRetentionServiceTest {
+
+    @Test
+    void evict_applies_age_count_and_type_limits() {
+        var store = new NotificationStore();
+        var properties = new RetentionProperties(Duration.ofHours(1), 5, Map.of("ERROR", 1), 2, null);
+        var retention = new NotificationRetentionService(store, properties);
+        var now = LocalDateTime.now();
+        store.save(notification("INFO", now.minusHours(3)));
+        store.save(notification("INFO", now.minusHours(2)));
+        store.save(notification("ERROR", now.minusMinutes(3)));
+        store.save(notification("ERROR", now.minusMinutes(2)));
+        for (int i = 0; i < 6; i++) {
+            store.save(notification("INFO", now.minusSeconds(60 - i)));
+        }
+
+        retention.evict();
+
+        assertThat(store.size()).isEqualTo(5);
+        assertThat(store.countByType("ERROR")).isZero();
+        assertThat(retention.getEvictedByAge()).isEqualTo(2);
+        assertThat(retention.getEvictedByType()).isEqualTo(1);
+        assertThat(retention.getEvictedByCount()).isEqualTo(2);
+    }
+
+    @Test
+    void heap_stays_flat_under_long_ingest() {
+        var store = new NotificationStore();
+        var retention = new NotificationRetentionService(store,
+                new RetentionProperties(null, 10_000, Map.of(), 5_000, null));
+        String body = "x".repeat(256);
+
+        ingest(store, retention, body, 50_000);
+        long baseline = usedHeapAfterGc();
+        ingest(store, retention, body, 300_000);
+        long after = usedHeapAfterGc();
+
+        assertThat(store.size()).isLessThanOrEqualTo(10_000);
+        // без вытеснения 300k уведомлений заняли бы сотни мегабайт
+        assertThat(after - baseline).isLessThan(48L * 1024 * 1024);
+    }
+
+    private static void ingest(NotificationStore store, NotificationRetentionService retention, String body, int count) {
+        for (int i = 0; i < count; i++) {
+            var n = notification("INFO", null);
+            n.setMessage(body + i);
+            store.save(n);
+            if (i % 1_000 == 0) {
+                retention.evict();
+            }
+        }
+        retention.evict();
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Notification notification(String type, LocalDateTime createdAt) {
+        var n = new Notification();
+        n.setTitle(type);
+        n.setMessage("msg");
+        n.setType(type);
+        n.setCreatedAt(createdAt);
+        return n;
+    }
+}
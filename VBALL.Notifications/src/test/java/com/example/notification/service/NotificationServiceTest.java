@@ -1,13 +1,27 @@
 package com.example.notification.service;
 
+import com.example.notification.dto.IncomingNotification;
 import com.example.notification.dto.NotificationRequest;
+import com.example.notification.dto.NotificationResponse;
+import com.example.notification.dto.NotificationStats;
+import com.example.notification.exception.IdempotencyKeyInProgressException;
+import com.example.notification.exception.InvalidRequestException;
 import com.example.notification.exception.NotificationNotFoundException;
 import com.example.notification.model.Notification;
 import com.example.notification.repository.NotificationStore;
+import com.example.notification.repository.StoredNotification;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -49,6 +63,31 @@ class NotificationServiceTest {
         assertThat(result).hasSize(1).first().extracting("title").isEqualTo("keep");
     }
 
+    @Test
+    void getNotificationsPage_follows_next_cursor_until_exhausted() {
+        var now = LocalDateTime.now();
+        for (long i = 1; i <= 5; i++) {
+            notificationStore.save(notification(i, "n" + i, now.minusMinutes(10 - i)));
+        }
+
+        var first = notificationService.getNotificationsPage(null, null, null, null, 2);
+        var second = notificationService.getNotificationsPage(null, null, null, first.nextCursor(), 2);
+        var third = notificationService.getNotificationsPage(null, null, null, second.nextCursor(), 2);
+
+        assertThat(first.items()).extracting("id").containsExactly(1L, 2L);
+        assertThat(second.items()).extracting("id").containsExactly(3L, 4L);
+        assertThat(third.items()).extracting("id").containsExactly(5L);
+        assertThat(third.nextCursor()).isNull();
+    }
+
+    @Test
+    void getNotificationsPage_rejects_invalid_cursor_and_limit() {
+        assertThatThrownBy(() -> notificationService.getNotificationsPage(null, null, null, "not-a-cursor", 10))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> notificationService.getNotificationsPage(null, null, null, null, 0))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
     @Test
     void getNotificationById_throws_when_missing() {
         assertThatThrownBy(() -> notificationService.getNotificationById(5L))
@@ -84,10 +123,216 @@ class NotificationServiceTest {
 
     @Test
     void createNotificationFromGrpc_uses_defaults() {
-        var response = notificationService.createNotificationFromGrpc(null, "payload", null);
+        var response = notificationService.createNotificationFromGrpc("", null, "payload", null);
 
         assertThat(response.getType()).isEqualTo("INFO");
         assertThat(response.getMessage()).isEqualTo("payload");
+        assertThat(response.getUserId()).isNull();
+    }
+
+    @Test
+    void getUserNotificationsPage_reads_only_that_users_inbox() {
+        notificationService.createNotificationFromGrpc("42", "INFO", "for 42", null);
+        notificationService.createNotificationFromGrpc("7", "INFO", "for 7", null);
+        notificationService.createNotificationFromGrpc(null, "INFO", "broadcast", null);
+
+        var page = notificationService.getUserNotificationsPage("42", null, null, null, null, null);
+
+        assertThat(page.items()).extracting("message").containsExactly("for 42");
+        assertThat(notificationService.getUserNotificationsPage("missing", null, null, null, null, 10).items())
+                .isEmpty();
+    }
+
+    @Test
+    void createNotification_with_same_idempotency_key_returns_original() {
+        var first = notificationService.createNotification(new NotificationRequest("t", "once", null), "key-1");
+        var retry = notificationService.createNotification(new NotificationRequest("t", "once", null), "key-1");
+        var other = notificationService.createNotification(new NotificationRequest("t", "other", null), "key-2");
+
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(other.getId()).isNotEqualTo(first.getId());
+        assertThat(notificationStore.size()).isEqualTo(2);
+        assertThatThrownBy(() -> notificationService.createNotification(
+                new NotificationRequest("t", "m", null), "k".repeat(NotificationService.MAX_IDEMPOTENCY_KEY_LENGTH + 1)))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void createNotificationsFromGrpc_skips_known_and_repeated_keys() {
+        long known = notificationService.createNotificationFromGrpc(
+                new IncomingNotification("u", "INFO", "known", null, "a")).getId();
+
+        long[] ids = notificationService.createNotificationsFromGrpc(List.of(
+                new IncomingNotification("u", "INFO", "retry", null, "a"),
+                new IncomingNotification("u", "INFO", "new", null, "b"),
+                new IncomingNotification("u", "INFO", "no key", null),
+                new IncomingNotification("u", "INFO", "new again", null, "b")));
+
+        assertThat(ids[0]).isEqualTo(known);
+        assertThat(ids[3]).isEqualTo(ids[1]);
+        assertThat(notificationService.getAllNotifications())
+                .extracting("message").containsExactlyInAnyOrder("known", "new", "no key");
+    }
+
+    @Test
+    @Timeout(10)
+    void deleteNotificationsMatching_without_upper_bound_stops_at_notifications_present_at_start() {
+        var base = LocalDateTime.now().minusHours(1);
+        var ingesting = new NotificationStore() {
+            private int inserted;
+
+            @Override
+            public boolean[] removeAll(long[] ids) {
+                boolean[] removed = super.removeAll(ids);
+                // приём не останавливается, пока идёт удаление
+                save(typed("new" + inserted, "ERROR", base.plusMinutes(10 + inserted++)));
+                return removed;
+            }
+        };
+        var service = new NotificationService(ingesting);
+        for (int i = 0; i < 2500; i++) {
+            ingesting.save(typed("old" + i, "ERROR", base.plusSeconds(i / 10)));
+        }
+
+        assertThat(service.deleteNotificationsMatching(null, null, Set.of("ERROR"))).isEqualTo(2500);
+        assertThat(ingesting.findAll()).extracting(StoredNotification::getTitle).containsExactly("new0", "new1", "new2");
+    }
+
+    @Test
+    void retry_of_a_key_stuck_in_progress_is_rejected_after_pending_wait() {
+        var cache = new IdempotencyCache(10, Duration.ofHours(1), Duration.ofMillis(20));
+        var service = new NotificationService(notificationStore, null, cache);
+        cache.claim("stuck");
+
+        assertThatThrownBy(() -> service.createNotification(new NotificationRequest("t", "m", null), "stuck"))
+                .isInstanceOf(IdempotencyKeyInProgressException.class);
+        long[] ids = service.createNotificationsFromGrpc(List.of(
+                new IncomingNotification("u", "INFO", "stuck", null, "stuck"),
+                new IncomingNotification("u", "INFO", "free", null, "free")));
+        assertThat(ids[0]).isEqualTo(NotificationService.IN_PROGRESS_ID);
+        assertThat(notificationService.getAllNotifications()).extracting("message").containsExactly("free");
+    }
+
+    @Test
+    void getStats_aligns_period_to_buckets_and_groups_levels() {
+        var hour = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0).minusHours(2);
+        notificationStore.save(typed("i1", "INFO", hour.plusMinutes(10)));
+        notificationStore.save(typed("i2", "INFO", hour.plusMinutes(10).plusSeconds(5)));
+        notificationStore.save(typed("e1", "ERROR", hour.plusMinutes(10)));
+        notificationStore.save(typed("e2", "ERROR", hour.plusMinutes(40)));
+
+        var stats = notificationService.getStats("minute", hour.plusMinutes(10).plusSeconds(30), hour.plusMinutes(41), null);
+
+        assertThat(stats.from()).isEqualTo(hour.plusMinutes(10));
+        assertThat(stats.to()).isEqualTo(hour.plusMinutes(41));
+        assertThat(stats.totals()).containsExactly(Map.entry("ERROR", 2L), Map.entry("INFO", 2L));
+        assertThat(stats.buckets()).extracting(NotificationStats.Bucket::start)
+                .containsExactly(hour.plusMinutes(10), hour.plusMinutes(40));
+        assertThat(stats.buckets().get(0).counts()).containsExactly(Map.entry("ERROR", 1L), Map.entry("INFO", 2L));
+
+        var hourly = notificationService.getStats("HOUR", null, null, Set.of("ERROR"));
+        assertThat(hourly.totals()).containsExactly(Map.entry("ERROR", 2L));
+        assertThatThrownBy(() -> notificationService.getStats("week", null, null, null))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void createNotifications_saves_batch_in_order() {
+        var userRequest = new NotificationRequest("b", "m2", null);
+        userRequest.setUserId("u1");
+
+        var created = notificationService.createNotifications(List.of(new NotificationRequest("a", "m1", "ERROR"), userRequest));
+
+        assertThat(created).extracting(NotificationResponse::getTitle).containsExactly("a", "b");
+        assertThat(created.get(1).getType()).isEqualTo("INFO");
+        assertThat(created.get(1).getId()).isEqualTo(created.get(0).getId() + 1);
+        assertThat(notificationService.getUserNotificationsPage("u1", null, null, null, null, null).items())
+                .extracting(NotificationResponse::getTitle).containsExactly("b");
+    }
+
+    @Test
+    void deleteNotifications_by_ids_and_by_filter() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        var a = notificationStore.save(typed("a", "INFO", base));
+        var b = notificationStore.save(typed("b", "ERROR", base.plusMinutes(1)));
+        notificationStore.save(typed("c", "ERROR", base.plusMinutes(2)));
+        notificationStore.save(typed("d", "ERROR", base.plusMinutes(3)));
+
+        var ids = new ArrayList<Long>(List.of(a.getId(), 404L));
+        ids.add(null);
+        assertThat(notificationService.deleteNotifications(ids)).containsExactly(true, false, false);
+
+        assertThat(notificationService.deleteNotificationsMatching(base, base.plusMinutes(3), Set.of("ERROR"))).isEqualTo(2);
+        assertThat(notificationStore.findAll()).extracting(StoredNotification::getTitle).containsExactly("d");
+        assertThat(notificationStore.findById(b.getId())).isNull();
+        assertThatThrownBy(() -> notificationService.deleteNotificationsMatching(null, null, Set.of()))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> notificationService.deleteNotifications(
+                Collections.nCopies(NotificationService.MAX_BATCH_SIZE + 1, 1L)))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void exportNotifications_filters_by_type_and_time_in_createdAt_order() {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        notificationStore.save(typed("late", "ERROR", base.plusHours(2)));
+        notificationStore.save(typed("early", "ERROR", base));
+        notificationStore.save(typed("info", "INFO", base.plusHours(1)));
+        notificationStore.save(typed("outside", "ERROR", base.plusDays(1)));
+
+        try (var export = notificationService.exportNotifications(base, base.plusHours(3), Set.of("ERROR"))) {
+            assertThat(export).extracting("title").containsExactly("early", "late");
+        }
+        assertThatThrownBy(() -> notificationService.exportNotifications(base, base, null))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void exportNotifications_live_heap_does_not_grow_with_store_size() {
+        long small = liveHeapGrowthDuringExport(20_000);
+        setUp();
+        long large = liveHeapGrowthDuringExport(200_000);
+
+        // список из 200 000 ответов занимал бы десятки мегабайт
+        assertThat(small).isLessThan(8L << 20);
+        assertThat(large).isLessThan(8L << 20);
+    }
+
+    /**
+     * Прирост живой кучи (после сборки мусора) в середине выгрузки относительно кучи до неё.
+     */
+    private long liveHeapGrowthDuringExport(int size) {
+        var base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < size; i++) {
+            notificationStore.save(typed("title " + i, "INFO", base.plusSeconds(i)));
+        }
+        long before = liveHeap();
+        long[] during = new long[1];
+        int[] exported = new int[1];
+        try (var export = notificationService.exportNotifications(null, null, null)) {
+            export.forEach(notification -> {
+                if (++exported[0] == size / 2) {
+                    during[0] = liveHeap();
+                }
+            });
+        }
+        assertThat(exported[0]).isEqualTo(size);
+        return during[0] - before;
+    }
+
+    private static long liveHeap() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static Notification typed(String title, String type, LocalDateTime createdAt) {
+        var n = new Notification();
+        n.setTitle(title);
+        n.setMessage("msg");
+        n.setType(type);
+        n.setCreatedAt(createdAt);
+        return n;
     }
 
     private Notification notification(Long id, String title, LocalDateTime createdAt) {